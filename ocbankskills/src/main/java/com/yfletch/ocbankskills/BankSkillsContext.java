@@ -2,19 +2,21 @@ package com.yfletch.ocbankskills;
 
 import com.google.inject.Singleton;
 import com.yfletch.occore.v2.CoreContext;
-import net.unethicalite.client.Static;
+import com.yfletch.occore.v2.context.ContextKey;
 
 @Singleton
 public class BankSkillsContext extends CoreContext
 {
+	private static final ContextKey<Boolean> ANIMATING = ContextKey.flag("animating");
+
 	public boolean isAnimating()
 	{
-		if (Static.getClient().getLocalPlayer().isAnimating())
+		if (getSnapshot().isAnimating())
 		{
-			flag("animating", true, 3);
+			flag(ANIMATING, true, 3);
 			return true;
 		}
 
-		return flag("animating");
+		return flag(ANIMATING);
 	}
 }
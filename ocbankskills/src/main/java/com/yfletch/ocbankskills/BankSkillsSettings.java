@@ -0,0 +1,44 @@
+package com.yfletch.ocbankskills;
+
+import static com.yfletch.occore.v2.util.Util.join;
+import static com.yfletch.occore.v2.util.Util.nameNotMatching;
+import static com.yfletch.occore.v2.util.Util.parseList;
+import java.util.function.Predicate;
+import lombok.Value;
+import net.runelite.api.Item;
+
+/**
+ * Parsed config values, rebuilt when the config changes
+ */
+@Value
+public class BankSkillsSettings
+{
+	String[] primary;
+	String[] secondary;
+	String[] product;
+
+	/**
+	 * Primary and secondary items
+	 */
+	String[] ingredients;
+
+	/**
+	 * Matches any item that isn't an ingredient
+	 */
+	Predicate<Item> otherItems;
+
+	public static BankSkillsSettings of(BankSkillsConfig config)
+	{
+		final var primary = parseList(config.primary());
+		final var secondary = parseList(config.secondary());
+		final var ingredients = join(primary, secondary);
+
+		return new BankSkillsSettings(
+			primary,
+			secondary,
+			parseList(config.product()),
+			ingredients,
+			nameNotMatching(ingredients)
+		);
+	}
+}
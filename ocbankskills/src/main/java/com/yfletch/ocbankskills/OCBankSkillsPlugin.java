@@ -2,20 +2,17 @@ package com.yfletch.ocbankskills;
 
 import com.google.inject.Inject;
 import com.google.inject.Provides;
+import com.yfletch.occore.v2.ConfigSnapshot;
 import com.yfletch.occore.v2.RunnerPlugin;
 import static com.yfletch.occore.v2.interaction.Entities.banked;
 import static com.yfletch.occore.v2.interaction.Entities.entity;
 import static com.yfletch.occore.v2.interaction.Entities.item;
 import static com.yfletch.occore.v2.interaction.Entities.widget;
-import static com.yfletch.occore.v2.util.Util.join;
 import static com.yfletch.occore.v2.util.Util.nameContaining;
-import static com.yfletch.occore.v2.util.Util.nameNotMatching;
-import static com.yfletch.occore.v2.util.Util.parseList;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.widgets.WidgetID;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.plugins.PluginDescriptor;
-import net.unethicalite.api.items.Bank;
 import net.unethicalite.api.items.Inventory;
 import org.pf4j.Extension;
 
@@ -29,6 +26,8 @@ public class OCBankSkillsPlugin extends RunnerPlugin<BankSkillsContext>
 {
 	@Inject BankSkillsConfig config;
 
+	private final ConfigSnapshot<BankSkillsSettings> settings = configSnapshot(() -> BankSkillsSettings.of(config));
+
 	@Inject
 	public void init(BankSkillsConfig config, BankSkillsContext context)
 	{
@@ -48,34 +47,39 @@ public class OCBankSkillsPlugin extends RunnerPlugin<BankSkillsContext>
 			.must(c -> product().length > 0, "Product item(s) must be set")
 			.mustBeNear(() -> entity(nameContaining("bank")), "any bank");
 
-		requirements().name("Item checks")
-			.when(c -> primary().length > 0 && secondary().length > 0)
-			.mustHave(join(primary(), secondary()));
+		// item names are resolved when built, so only
+		// rebuild these when the item lists change
+		dependsOn(new String[]{"primary", "secondary"}, () ->
+			requirements().name("Item checks")
+				.when(c -> primary().length > 0 && secondary().length > 0)
+				.mustHave(settings.get().getIngredients())
+		);
 
 		action().name("Open bank")
-			.when(c -> !Inventory.contains(primary()) || !Inventory.contains(secondary()))
-			.until(c -> Bank.isOpen())
+			.when(c -> !c.getSnapshot().getInventory().contains(primary())
+				|| !c.getSnapshot().getInventory().contains(secondary()))
+			.until(c -> c.getSnapshot().isBankOpen())
 			.then(c -> entity(nameContaining("bank")).interact("Use", "Bank"));
 
 		action().name("Deposit other items")
 			.oncePerTick()
-			.when(c -> Bank.isOpen() && Inventory.contains(nameNotMatching(join(primary(), secondary()))))
+			.when(c -> c.getSnapshot().isBankOpen() && Inventory.contains(settings.get().getOtherItems()))
 			.then(c -> widget("Deposit inventory").interact());
 
 		action().name("Withdraw primary")
 			.oncePerTick()
-			.when(c -> Bank.isOpen())
-			.until(c -> Inventory.contains(primary()))
+			.when(c -> c.getSnapshot().isBankOpen())
+			.until(c -> c.getSnapshot().getInventory().contains(primary()))
 			.then(c -> banked(primary()).withdrawX());
 
 		action().name("Withdraw secondary")
 			.oncePerTick()
-			.when(c -> Bank.isOpen())
-			.until(c -> Inventory.contains(secondary()))
+			.when(c -> c.getSnapshot().isBankOpen())
+			.until(c -> c.getSnapshot().getInventory().contains(secondary()))
 			.then(c -> banked(secondary()).withdrawX());
 
 		action().name("Close bank")
-			.when(c -> Bank.isOpen())
+			.when(c -> c.getSnapshot().isBankOpen())
 			.then(c -> widget(WidgetID.BANK_GROUP_ID, "Close").interact())
 			.delay(1);
 
@@ -92,17 +96,17 @@ public class OCBankSkillsPlugin extends RunnerPlugin<BankSkillsContext>
 
 	private String[] primary()
 	{
-		return parseList(config.primary());
+		return settings.get().getPrimary();
 	}
 
 	private String[] secondary()
 	{
-		return parseList(config.secondary());
+		return settings.get().getSecondary();
 	}
 
 	private String[] product()
 	{
-		return parseList(config.product());
+		return settings.get().getProduct();
 	}
 
 	@Provides
@@ -2,8 +2,10 @@ package com.yfletch.ocbloods;
 
 import com.yfletch.occore.ActionContext;
 import com.yfletch.occore.util.ObjectHelper;
+import com.yfletch.occore.v2.checkpoint.Checkpointable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import net.runelite.api.Client;
 import net.runelite.api.InventoryID;
@@ -18,7 +20,7 @@ import net.runelite.api.widgets.Widget;
 import net.runelite.api.widgets.WidgetInfo;
 
 @Singleton
-public class OCBloodsContext extends ActionContext
+public class OCBloodsContext extends ActionContext implements Checkpointable<OCBloodsContext.PouchState>
 {
 	private final static int POUCH_CAPACITY = 40;
 	public final static int POUCH_DURABILITY = 320;
@@ -338,4 +340,30 @@ public class OCBloodsContext extends ActionContext
 			? rejuvenationPool
 			: objectHelper.getNearest("Revitalisation");
 	}
+
+	@Override
+	public Class<PouchState> getCheckpointType()
+	{
+		return PouchState.class;
+	}
+
+	@Override
+	public PouchState saveCheckpoint()
+	{
+		return new PouchState(pouchEssence, pouchUses);
+	}
+
+	@Override
+	public void restoreCheckpoint(PouchState state)
+	{
+		pouchEssence = state.essence;
+		pouchUses = state.uses;
+	}
+
+	@AllArgsConstructor
+	public static class PouchState
+	{
+		private final int essence;
+		private final int uses;
+	}
 }
@@ -7,8 +7,10 @@ import com.yfletch.ocbloods.overlay.PouchOverlay;
 import com.yfletch.ocbloods.overlay.StatisticsOverlay;
 import com.yfletch.ocbloods.util.Statistics;
 import com.yfletch.occore.ActionRunner;
+import com.yfletch.occore.v2.checkpoint.Checkpoints;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
 import net.runelite.api.InventoryID;
 import net.runelite.api.ItemID;
 import net.runelite.api.events.GameTick;
@@ -71,11 +73,21 @@ public class OCBloodsPlugin extends Plugin
 	private ActionRunner<OCBloodsContext> runner;
 	//
 
+	@Inject
+	private Client client;
+
+	private Checkpoints checkpoints;
+	private boolean restorePending;
+
 	@Override
 	protected void startUp()
 	{
 		runner = runnerFactory.create();
 		actionOverlay = new ActionOverlay(runner);
+
+		// pick up optimistic pouch counts from before a restart
+		checkpoints = new Checkpoints(getName()).register("context", context);
+		restorePending = true;
 		debugOverlay.setRunner(runner);
 
 		overlayManager.add(actionOverlay);
@@ -96,6 +108,7 @@ public class OCBloodsPlugin extends Plugin
 	@Override
 	protected void shutDown()
 	{
+		checkpoints.save(client);
 		runner = null;
 		overlayManager.remove(actionOverlay);
 		overlayManager.remove(pouchOverlay);
@@ -106,6 +119,16 @@ public class OCBloodsPlugin extends Plugin
 	@Subscribe
 	public void onGameTick(GameTick event)
 	{
+		if (restorePending)
+		{
+			restorePending = false;
+			checkpoints.restore(client);
+		}
+		else
+		{
+			checkpoints.tick(client);
+		}
+
 		runner.tick();
 		context.tick();
 		statistics.tick();
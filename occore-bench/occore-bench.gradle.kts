@@ -0,0 +1,30 @@
+version = "1.0.0"
+
+dependencies {
+    implementation(project(":occore"))
+    implementation(project(":occore-testkit"))
+
+    implementation(Libraries.jmhCore)
+    annotationProcessor(Libraries.jmhGenerator)
+}
+
+tasks {
+    // not a plugin - nothing to publish
+    jar {
+        enabled = false
+    }
+
+    register<JavaExec>("jmh") {
+        group = "benchmark"
+        description = "Run the occore rule engine benchmarks"
+
+        // client libraries are compileOnly for plugins, but the
+        // benchmarks need them at runtime
+        classpath = sourceSets["main"].runtimeClasspath + configurations["compileClasspath"]
+        mainClass.set("org.openjdk.jmh.Main")
+
+        // -prof gc reports bytes allocated per operation (gc.alloc.rate.norm)
+        args = listOf("-prof", "gc", "-rf", "json", "-rff", "$buildDir/jmh-result.json") +
+            (project.findProperty("jmhArgs") as String? ?: "").split(" ").filter { it.isNotBlank() }
+    }
+}
@@ -0,0 +1,55 @@
+package com.yfletch.occore.v2.bench;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Shapes of real plugin action sets, split into the phases the
+ * player moves through. Each action stands in for one action of
+ * the plugin, in the same priority order.
+ */
+@Getter
+@AllArgsConstructor
+public enum ActionSet
+{
+	BLOODS(new Phase[]{
+		new Phase("Repair", "Cast NPC Contact", "Continue dialog", "Select repair", "Continue", "Continue repair", "Close dialog"),
+		new Phase("Castle Wars", "Teleport", "Open bank", "Withdraw pure essence", "Drink stamina"),
+		new Phase("Bank", "Deposit runes", "Withdraw essence", "Fill pouches", "Withdraw more", "Equip ring", "Close bank"),
+		new Phase("House", "Drink from pool", "Use fairy ring", "Enter fairy ring", "Leave house"),
+		new Phase("Caves", "Enter cave", "Climb rocks", "Squeeze through", "Jump gap", "Enter ruins"),
+		new Phase("Altar", "Craft runes", "Empty pouches", "Craft again", "Teleport out"),
+	}),
+	RIFT(new Phase[]{
+		new Phase("Repair", "Cast NPC Contact", "Continue dialog", "Select repair", "Close dialog"),
+		new Phase("Pregame", "Drop cells", "Take cells", "Climb rubble", "Take remains", "Special attack", "Varrock armour", "Fill pouches"),
+		new Phase("Guardian", "Workbench", "Place cell", "Enter altar", "Power up", "Mine parts", "Enter portal", "Mine huge", "Exit portal", "Deposit runes", "Drop runes"),
+		new Phase("Altar", "Empty pouches", "Robe top", "Craft runes", "Exit altar"),
+	});
+
+	private final Phase[] phases;
+
+	public int getActionCount()
+	{
+		var count = 0;
+		for (final var phase : phases)
+		{
+			count += phase.getActions().length;
+		}
+
+		return count;
+	}
+
+	@Getter
+	public static final class Phase
+	{
+		private final String name;
+		private final String[] actions;
+
+		Phase(String name, String... actions)
+		{
+			this.name = name;
+			this.actions = actions;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.yfletch.occore.v2.bench;
+
+import com.yfletch.occore.v2.RunnerPlugin;
+import com.yfletch.occore.v2.fsm.RuleState;
+import java.util.ArrayList;
+import java.util.function.Predicate;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Runner built from an action set, either as one flat list where
+ * every action checks which phase the player is in, or as a state
+ * machine with a state per phase.
+ */
+@Setter
+@Accessors(fluent = true)
+public class ActionSetPlugin extends RunnerPlugin<BenchContext>
+{
+	private ActionSet actionSet = ActionSet.BLOODS;
+
+	private boolean useStateMachine = false;
+
+	/**
+	 * Blackhole tokens consumed by each predicate and guard
+	 */
+	private int predicateCost = 0;
+
+	/**
+	 * Phase the player is in
+	 */
+	private int phase = 0;
+
+	/**
+	 * Index of the only passing action within the phase
+	 */
+	private int action = 0;
+
+	@Override
+	public void setup()
+	{
+		final var phases = actionSet.getPhases();
+		if (!useStateMachine)
+		{
+			for (var p = 0; p < phases.length; p++)
+			{
+				final var phaseIndex = p;
+				addActions(phases[p], c -> phase == phaseIndex);
+			}
+			return;
+		}
+
+		// the phase check moves out of the actions and into the
+		// guards between states - every state can move straight
+		// to any other, so the machine reaches the player's phase
+		// in one step wherever it starts
+		final var states = new ArrayList<RuleState<BenchContext>>();
+		for (final var p : phases)
+		{
+			states.add(state(p.getName(), () -> addActions(p, null)));
+		}
+
+		for (var p = 0; p < phases.length; p++)
+		{
+			for (var q = 0; q < phases.length; q++)
+			{
+				final var target = q;
+				if (target != p)
+				{
+					states.get(p).to(states.get(target), c -> burn() && phase == target);
+				}
+			}
+		}
+	}
+
+	private void addActions(ActionSet.Phase definition, Predicate<BenchContext> inPhase)
+	{
+		final var actions = definition.getActions();
+		for (var a = 0; a < actions.length; a++)
+		{
+			final var actionIndex = a;
+			action().name(actions[a])
+				.when(c -> burn() && (inPhase == null || inPhase.test(c)) && action == actionIndex)
+				.message(actions[a]);
+		}
+	}
+
+	private boolean burn()
+	{
+		if (predicateCost > 0)
+		{
+			Blackhole.consumeCPU(predicateCost);
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,7 @@
+package com.yfletch.occore.v2.bench;
+
+import com.yfletch.occore.v2.CoreContext;
+
+public class BenchContext extends CoreContext
+{
+}
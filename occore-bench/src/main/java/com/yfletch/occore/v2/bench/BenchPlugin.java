@@ -0,0 +1,63 @@
+package com.yfletch.occore.v2.bench;
+
+import com.yfletch.occore.v2.RunnerPlugin;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Runner with a synthetic rule set. Every rule burns a fixed
+ * amount of CPU in its predicate, and only the rule at the
+ * passing index passes.
+ */
+@Setter
+@Accessors(fluent = true)
+public class BenchPlugin extends RunnerPlugin<BenchContext>
+{
+	private int ruleCount = 10;
+
+	/**
+	 * Blackhole tokens consumed by each predicate
+	 */
+	private int predicateCost = 0;
+
+	/**
+	 * Index of the only passing rule, or -1 for none
+	 */
+	private int passingIndex = -1;
+
+	/**
+	 * Build every other rule as a requirement rule instead
+	 */
+	private boolean mixRequirements = false;
+
+	@Override
+	public void setup()
+	{
+		for (var i = 0; i < ruleCount; i++)
+		{
+			final var passes = i == passingIndex;
+			if (mixRequirements && i % 2 == 1)
+			{
+				// requirement rules pass when a requirement fails
+				requirements().name("Requirement " + i)
+					.must(c -> burn() && !passes, "Requirement " + i);
+				continue;
+			}
+
+			action().name("Rule " + i)
+				.when(c -> burn() && passes)
+				.message("Rule " + i);
+		}
+	}
+
+	private boolean burn()
+	{
+		if (predicateCost > 0)
+		{
+			Blackhole.consumeCPU(predicateCost);
+		}
+
+		return true;
+	}
+}
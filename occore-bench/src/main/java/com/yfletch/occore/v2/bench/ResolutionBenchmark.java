@@ -0,0 +1,94 @@
+package com.yfletch.occore.v2.bench;
+
+import com.yfletch.occore.v2.EngineHarness;
+import com.yfletch.occore.v2.rule.Rule;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time (and, with -prof gc, allocation) of a single rule resolution
+ * pass over synthetic rule sets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolutionBenchmark
+{
+	public enum PassingRule
+	{
+		FIRST,
+		MIDDLE,
+		LAST,
+		NONE,
+	}
+
+	@Param({"10", "100", "1000"})
+	private int rules;
+
+	@Param({"0", "50", "500"})
+	private int predicateCost;
+
+	@Param({"FIRST", "MIDDLE", "LAST", "NONE"})
+	private PassingRule passingRule;
+
+	@Param({"false", "true"})
+	private boolean mixRequirements;
+
+	@Param({"false", "true"})
+	private boolean sticky;
+
+	private EngineHarness<BenchContext> harness;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		final int passingIndex;
+		switch (passingRule)
+		{
+			case FIRST:
+				passingIndex = 0;
+				break;
+			case MIDDLE:
+				passingIndex = rules / 2;
+				break;
+			case LAST:
+				passingIndex = rules - 1;
+				break;
+			default:
+				passingIndex = -1;
+		}
+
+		final var plugin = new BenchPlugin()
+			.ruleCount(rules)
+			.predicateCost(predicateCost)
+			.passingIndex(passingIndex)
+			.mixRequirements(mixRequirements);
+		plugin.stickyResolution(sticky);
+
+		harness = new EngineHarness<>(plugin, new BenchContext());
+
+		// settle on the passing rule before measuring
+		harness.resolve();
+	}
+
+	@Benchmark
+	public Rule<BenchContext> resolve()
+	{
+		harness.resolve();
+		return harness.getCurrentRule();
+	}
+}
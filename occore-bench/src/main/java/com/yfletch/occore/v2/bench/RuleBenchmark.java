@@ -0,0 +1,104 @@
+package com.yfletch.occore.v2.bench;
+
+import com.yfletch.occore.v2.EngineHarness;
+import com.yfletch.occore.v2.rule.DynamicRule;
+import com.yfletch.occore.v2.rule.RequirementRule;
+import com.yfletch.occore.v2.snapshot.ItemContainerSnapshot;
+import com.yfletch.occore.v2.snapshot.WorldSnapshot;
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.ItemID;
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of checking individual rules and context operations
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleBenchmark
+{
+	private BenchContext context;
+
+	private DynamicRule<BenchContext> dynamicRule;
+	private RequirementRule<BenchContext> requirementRule;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		final var harness = new EngineHarness<>(new BenchPlugin(), new BenchContext());
+		context = harness.getContext();
+
+		final var inventoryIds = new int[WorldSnapshot.INVENTORY_SIZE];
+		final var inventoryQuantities = new int[WorldSnapshot.INVENTORY_SIZE];
+		for (var i = 0; i < inventoryIds.length; i++)
+		{
+			inventoryIds[i] = i < 20 ? ItemID.COINS_995 + i : -1;
+			inventoryQuantities[i] = 1;
+
+			// there's no item manager to look names up from
+			ItemContainerSnapshot.registerName(ItemID.COINS_995 + i, "Item " + i);
+		}
+
+		harness.setSnapshot(new WorldSnapshot(
+			0,
+			ItemContainerSnapshot.of(inventoryIds, inventoryQuantities),
+			ItemContainerSnapshot.EMPTY,
+			ItemContainerSnapshot.EMPTY,
+			new WorldPoint(3200, 3200, 0),
+			-1,
+			false,
+			false,
+			new int[0],
+			new int[0]
+		));
+
+		dynamicRule = new DynamicRule<BenchContext>()
+			.name("Dynamic")
+			.when(c -> c.flag("enabled") != null && c.arg("target") != null);
+
+		requirementRule = new RequirementRule<BenchContext>()
+			.mustHaveInInventory(ItemID.COINS_995 + 19)
+			.mustHaveOnPerson(ItemID.COINS_995 + 10)
+			.mustBeNear(new WorldArea(3190, 3190, 20, 20, 0), "Area");
+
+		context.flag("enabled", true);
+		context.arg("target", "Man");
+	}
+
+	@Benchmark
+	public boolean dynamicRulePasses()
+	{
+		return dynamicRule.passes(context);
+	}
+
+	@Benchmark
+	public boolean requirementRulePasses()
+	{
+		return requirementRule.passes(context);
+	}
+
+	@Benchmark
+	public void contextFlagAndArg(Blackhole blackhole)
+	{
+		context.flag("bench", true);
+		blackhole.consume(context.flag("bench"));
+		context.arg("bench", "value");
+		blackhole.consume(context.arg("bench"));
+	}
+}
@@ -0,0 +1,99 @@
+package com.yfletch.occore.v2.bench;
+
+import com.yfletch.occore.v2.EngineHarness;
+import com.yfletch.occore.v2.rule.Rule;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time of a single rule resolution pass over the ocbloods and ocrift
+ * action sets, scanning a flat priority list compared to only checking
+ * the current state's transitions and rules.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateMachineBenchmark
+{
+	public enum Position
+	{
+		FIRST,
+		LAST,
+	}
+
+	@Param({"BLOODS", "RIFT"})
+	private ActionSet actionSet;
+
+	@Param({"false", "true"})
+	private boolean stateMachine;
+
+	@Param({"0", "50", "500"})
+	private int predicateCost;
+
+	/**
+	 * Phase the player is in, and the passing action within it
+	 */
+	@Param({"FIRST", "LAST"})
+	private Position position;
+
+	private EngineHarness<BenchContext> harness;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		final var phases = actionSet.getPhases();
+		final var phase = position == Position.FIRST ? 0 : phases.length - 1;
+		final var action = position == Position.FIRST ? 0 : phases[phase].getActions().length - 1;
+
+		harness = createHarness(stateMachine, phase, action);
+
+		// move to the phase's state and settle
+		// on the passing action before measuring
+		harness.resolve();
+
+		// both variants must settle on the same action,
+		// or their timings can't be compared
+		final var reference = createHarness(false, phase, action);
+		reference.resolve();
+		final var expected = reference.getCurrentRule();
+		final var actual = harness.getCurrentRule();
+		if (expected == null || actual == null || !expected.name().equals(actual.name()))
+		{
+			throw new IllegalStateException("Resolved " + (actual != null ? actual.name() : "nothing")
+				+ ", but the flat list resolves " + (expected != null ? expected.name() : "nothing"));
+		}
+	}
+
+	private EngineHarness<BenchContext> createHarness(boolean useStateMachine, int phase, int action)
+	{
+		final var plugin = new ActionSetPlugin()
+			.actionSet(actionSet)
+			.useStateMachine(useStateMachine)
+			.predicateCost(predicateCost)
+			.phase(phase)
+			.action(action);
+
+		return new EngineHarness<>(plugin, new BenchContext());
+	}
+
+	@Benchmark
+	public Rule<BenchContext> resolve()
+	{
+		harness.resolve();
+		return harness.getCurrentRule();
+	}
+}
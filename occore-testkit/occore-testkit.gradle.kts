@@ -0,0 +1,5 @@
+version = "1.0.0"
+
+dependencies {
+    implementation(project(":occore"))
+}
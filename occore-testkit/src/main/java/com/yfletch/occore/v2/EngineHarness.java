@@ -0,0 +1,91 @@
+package com.yfletch.occore.v2;
+
+import com.yfletch.occore.v2.rule.Rule;
+import com.yfletch.occore.v2.snapshot.WorldSnapshot;
+import com.yfletch.occore.v2.testkit.Fakes;
+import java.util.function.Supplier;
+
+/**
+ * Drives a runner plugin's rule engine without a client. Lives in
+ * the engine's package so it can reach the package-private hooks.
+ * <p>
+ * Rules are resolved synchronously on the calling thread, so
+ * every pass is deterministic.
+ */
+public final class EngineHarness<TContext extends CoreContext>
+{
+	private final RunnerPlugin<TContext> plugin;
+	private final TContext context;
+
+	public EngineHarness(RunnerPlugin<TContext> plugin, TContext context)
+	{
+		this.plugin = plugin;
+		this.context = context;
+
+		// fill in anything the client would normally provide
+		setIfMissing("breakHandler", new BreakHandler());
+		setIfMissing("statistics", new StatisticTracker());
+		setIfMissing("config", Fakes.config(CoreConfig.class));
+		plugin.getScheduler().start(Runnable::run);
+
+		plugin.setContext(context);
+		plugin.refresh();
+	}
+
+	/**
+	 * Run a single resolution pass
+	 */
+	public void resolve()
+	{
+		plugin.resolveRules();
+	}
+
+	/**
+	 * Replace the world snapshot without going through a client
+	 */
+	public void setSnapshot(WorldSnapshot snapshot)
+	{
+		context.setSnapshot(snapshot);
+	}
+
+	/**
+	 * Use snapshots from the source whenever the runner would
+	 * capture one from the client, or null to capture again
+	 */
+	public void setSnapshotSource(Supplier<WorldSnapshot> source)
+	{
+		plugin.snapshotSource = source;
+	}
+
+	public Rule<TContext> getCurrentRule()
+	{
+		return plugin.getCurrentRule();
+	}
+
+	public RunnerPlugin<TContext> getPlugin()
+	{
+		return plugin;
+	}
+
+	public TContext getContext()
+	{
+		return context;
+	}
+
+	private void setIfMissing(String name, Object value)
+	{
+		try
+		{
+			final var field = RunnerPlugin.class.getDeclaredField(name);
+			field.setAccessible(true);
+			if (field.get(plugin) == null)
+			{
+				field.set(plugin, value);
+			}
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Failed to set up runner plugin field " + name, e);
+		}
+	}
+}
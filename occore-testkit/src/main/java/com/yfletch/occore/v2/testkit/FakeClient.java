@@ -0,0 +1,227 @@
+package com.yfletch.occore.v2.testkit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import lombok.Getter;
+import lombok.Setter;
+import net.runelite.api.Client;
+import net.runelite.api.GameObject;
+import net.runelite.api.GameState;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.NPC;
+import net.runelite.api.Player;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.widgets.WidgetInfo;
+import net.unethicalite.client.Static;
+
+/**
+ * Scriptable stand-in for the game client. Holds a small amount of
+ * world state (player, item containers, varbits, NPCs, objects and
+ * open interfaces) and exposes it through a fake {@link Client}.
+ * <p>
+ * Anything else can be scripted with {@link #on}.
+ */
+public class FakeClient
+{
+	private final Map<String, Object> answers = new HashMap<>();
+
+	@Getter
+	private final Client client;
+
+	@Getter
+	private final Player localPlayer;
+
+	@Getter
+	@Setter
+	private int tickCount = 0;
+
+	@Getter
+	@Setter
+	private GameState gameState = GameState.LOGGED_IN;
+
+	@Getter
+	@Setter
+	private WorldPoint playerLocation = new WorldPoint(3222, 3218, 0);
+
+	@Getter
+	@Setter
+	private int playerAnimation = -1;
+
+	private final Map<Integer, ItemContainer> containers = new HashMap<>();
+	private final Map<Integer, Integer> varbits = new HashMap<>();
+	private final Map<Integer, String> itemNames = new HashMap<>();
+	private final Set<Integer> openWidgetGroups = new HashSet<>();
+
+	@Getter
+	private final List<NPC> npcs = new ArrayList<>();
+
+	@Getter
+	private final List<GameObject> objects = new ArrayList<>();
+
+	public FakeClient()
+	{
+		localPlayer = Fakes.fake(Player.class, Map.of(
+			"name", "Player",
+			"worldLocation", (Supplier<WorldPoint>) () -> playerLocation,
+			"animation", (Supplier<Integer>) () -> playerAnimation
+		));
+
+		answers.put("getTickCount", (Supplier<Integer>) () -> tickCount);
+		answers.put("getGameState", (Supplier<GameState>) () -> gameState);
+		answers.put("getLocalPlayer", localPlayer);
+		answers.put("isClientThread", true);
+		answers.put("getNpcs", (Supplier<List<NPC>>) () -> new ArrayList<>(npcs));
+		answers.put("getItemContainer", (Fakes.Answer) args -> containers.get(getContainerId(args[0])));
+		answers.put("getVarbitValue", (Fakes.Answer) args -> varbits.getOrDefault((Integer) args[0], 0));
+		answers.put("getItemComposition", (Fakes.Answer) args -> getItemComposition((Integer) args[0]));
+		answers.put("getItemDefinition", (Fakes.Answer) args -> getItemComposition((Integer) args[0]));
+		answers.put("getWidget", (Fakes.Answer) this::getWidget);
+
+		client = Fakes.fakeBackedBy(Client.class, answers);
+	}
+
+	/**
+	 * Script the response to a client method, overriding any default
+	 */
+	public FakeClient on(String method, Fakes.Answer answer)
+	{
+		answers.put(method, answer);
+		return this;
+	}
+
+	/**
+	 * Make this the client used by the static Unethicalite API
+	 * (Inventory, Bank, Widgets, etc)
+	 */
+	public void install()
+	{
+		try
+		{
+			final var field = Static.class.getDeclaredField("client");
+			field.setAccessible(true);
+			field.set(null, client);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Failed to install fake client", e);
+		}
+	}
+
+	public void nextTick()
+	{
+		tickCount++;
+	}
+
+	/**
+	 * Set a container's contents. Use -1 for empty slots.
+	 */
+	public ItemContainer setContainer(InventoryID inventoryId, int[] ids, int[] quantities)
+	{
+		if (ids.length != quantities.length)
+		{
+			throw new IllegalArgumentException("ids and quantities must be the same length");
+		}
+
+		final var items = new Item[ids.length];
+		for (var i = 0; i < ids.length; i++)
+		{
+			items[i] = new Item(ids[i], ids[i] < 0 ? 0 : quantities[i]);
+		}
+
+		final var container = Fakes.fake(ItemContainer.class, Map.of(
+			"id", inventoryId.getId(),
+			"items", items,
+			"size", items.length,
+			"getItem", (Fakes.Answer) args -> (Integer) args[0] < items.length ? items[(Integer) args[0]] : null,
+			"contains", (Fakes.Answer) args -> count(items, (Integer) args[0]) > 0,
+			"count", (Fakes.Answer) args -> count(items, (Integer) args[0])
+		));
+
+		containers.put(inventoryId.getId(), container);
+		return container;
+	}
+
+	public ItemContainer getContainer(InventoryID inventoryId)
+	{
+		return containers.get(inventoryId.getId());
+	}
+
+	public void setVarbit(int varbitId, int value)
+	{
+		varbits.put(varbitId, value);
+	}
+
+	public void setItemName(int id, String name)
+	{
+		itemNames.put(id, name);
+	}
+
+	public void openWidget(int groupId)
+	{
+		openWidgetGroups.add(groupId);
+	}
+
+	public void closeWidget(int groupId)
+	{
+		openWidgetGroups.remove(groupId);
+	}
+
+	public boolean isWidgetOpen(int groupId)
+	{
+		return openWidgetGroups.contains(groupId);
+	}
+
+	private Object getItemComposition(int id)
+	{
+		return Fakes.itemComposition(id, itemNames.getOrDefault(id, "Item " + id));
+	}
+
+	private Object getWidget(Object[] args)
+	{
+		final int groupId;
+		final int childId;
+		if (args.length == 1 && args[0] instanceof WidgetInfo)
+		{
+			groupId = ((WidgetInfo) args[0]).getGroupId();
+			childId = ((WidgetInfo) args[0]).getChildId();
+		}
+		else if (args.length == 1)
+		{
+			groupId = (Integer) args[0] >>> 16;
+			childId = (Integer) args[0] & 0xFFFF;
+		}
+		else
+		{
+			groupId = (Integer) args[0];
+			childId = (Integer) args[1];
+		}
+
+		return openWidgetGroups.contains(groupId) ? Fakes.widget(groupId, childId) : null;
+	}
+
+	private static int getContainerId(Object id)
+	{
+		return id instanceof InventoryID ? ((InventoryID) id).getId() : (Integer) id;
+	}
+
+	private static int count(Item[] items, int id)
+	{
+		var count = 0;
+		for (final var item : items)
+		{
+			if (item.getId() == id)
+			{
+				count += item.getQuantity();
+			}
+		}
+
+		return count;
+	}
+}
@@ -0,0 +1,186 @@
+package com.yfletch.occore.v2.testkit;
+
+import com.google.inject.Inject;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import net.runelite.client.config.Config;
+
+/**
+ * Minimal stand-in for the client's Guice injector. Every type is a
+ * singleton, and only types that are bound, configs (which are faked)
+ * or classes from this project are created - anything else the client
+ * would provide (overlay managers, item managers, etc) is left null.
+ */
+public class FakeInjector
+{
+	private static final String PROJECT_PACKAGE = "com.yfletch.";
+
+	private final Map<Class<?>, Object> instances = new HashMap<>();
+
+	/**
+	 * Values returned by every faked config, keyed by method name
+	 */
+	@Getter
+	private final Map<String, Object> configValues = new HashMap<>();
+
+	public <T> FakeInjector bind(Class<T> type, T instance)
+	{
+		instances.put(type, instance);
+		return this;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T getInstance(Class<T> type)
+	{
+		if (instances.containsKey(type))
+		{
+			return (T) instances.get(type);
+		}
+
+		if (type.isInterface() && Config.class.isAssignableFrom(type))
+		{
+			final var config = Fakes.config((Class<? extends Config>) type, configValues);
+			instances.put(type, config);
+			return (T) config;
+		}
+
+		if (!type.getName().startsWith(PROJECT_PACKAGE)
+			|| type.isInterface() || Modifier.isAbstract(type.getModifiers()))
+		{
+			return null;
+		}
+
+		final T instance = construct(type);
+
+		// register before injecting, in case of cycles
+		instances.put(type, instance);
+		injectMembers(instance);
+		return instance;
+	}
+
+	/**
+	 * Set all @Inject fields, then call all @Inject methods,
+	 * starting from the top of the class hierarchy
+	 */
+	public void injectMembers(Object instance)
+	{
+		final var hierarchy = new ArrayList<Class<?>>();
+		for (Class<?> type = instance.getClass(); type != null && type != Object.class; type = type.getSuperclass())
+		{
+			hierarchy.add(type);
+		}
+		Collections.reverse(hierarchy);
+
+		for (final var type : hierarchy)
+		{
+			for (final var field : type.getDeclaredFields())
+			{
+				if (isInjected(field) && !Modifier.isStatic(field.getModifiers()))
+				{
+					setField(instance, field, getInstance(field.getType()));
+				}
+			}
+		}
+
+		for (final var type : hierarchy)
+		{
+			for (final var method : type.getDeclaredMethods())
+			{
+				if (isInjected(method) && !Modifier.isStatic(method.getModifiers()))
+				{
+					invoke(instance, method);
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T construct(Class<T> type)
+	{
+		try
+		{
+			Constructor<T> constructor = null;
+			for (final var candidate : type.getDeclaredConstructors())
+			{
+				if (isInjected(candidate) || candidate.getParameterCount() == 0)
+				{
+					constructor = (Constructor<T>) candidate;
+					if (isInjected(candidate))
+					{
+						break;
+					}
+				}
+			}
+
+			if (constructor == null)
+			{
+				throw new IllegalArgumentException("No injectable constructor for " + type.getName());
+			}
+
+			constructor.setAccessible(true);
+			return constructor.newInstance(resolveParameters(constructor));
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Failed to create " + type.getName(), e);
+		}
+	}
+
+	private void setField(Object instance, Field field, Object value)
+	{
+		if (value == null)
+		{
+			return;
+		}
+
+		try
+		{
+			field.setAccessible(true);
+			field.set(instance, value);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Failed to inject " + field, e);
+		}
+	}
+
+	private void invoke(Object instance, Method method)
+	{
+		try
+		{
+			method.setAccessible(true);
+			method.invoke(instance, resolveParameters(method));
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Failed to inject " + method, e);
+		}
+	}
+
+	private Object[] resolveParameters(Executable executable)
+	{
+		final List<Object> args = new ArrayList<>();
+		for (final var parameter : executable.getParameterTypes())
+		{
+			args.add(getInstance(parameter));
+		}
+
+		return args.toArray();
+	}
+
+	private static boolean isInjected(AnnotatedElement element)
+	{
+		return element.isAnnotationPresent(Inject.class)
+			|| element.isAnnotationPresent(javax.inject.Inject.class);
+	}
+}
@@ -0,0 +1,350 @@
+package com.yfletch.occore.v2.testkit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import net.runelite.api.GameObject;
+import net.runelite.api.ItemComposition;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.NPC;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.widgets.Widget;
+import net.runelite.client.config.Config;
+
+/**
+ * Factories for fake game objects. Fakes are interface proxies that
+ * behave like beans - getX/isX return the "x" property, setX stores
+ * it - and any other method returns its type's default value (0,
+ * false, null or an empty collection) unless given an {@link Answer}.
+ */
+public final class Fakes
+{
+	/**
+	 * Scripted response to a method call, keyed by method name
+	 */
+	@FunctionalInterface
+	public interface Answer
+	{
+		Object answer(Object[] args);
+	}
+
+	private Fakes()
+	{
+	}
+
+	/**
+	 * Create a fake implementation of an interface. Property values
+	 * can be fixed values, a Supplier (read on every call), or an
+	 * Answer keyed by the full method name.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T fake(Class<T> type, Map<String, Object> properties)
+	{
+		return (T) Proxy.newProxyInstance(
+			type.getClassLoader(),
+			new Class<?>[]{type},
+			new FakeHandler(type, new HashMap<>(properties))
+		);
+	}
+
+	/**
+	 * Create a fake implementation of an interface, backed directly by
+	 * a mutable property map - later changes to the map are seen.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T fakeBackedBy(Class<T> type, Map<String, Object> properties)
+	{
+		return (T) Proxy.newProxyInstance(
+			type.getClassLoader(),
+			new Class<?>[]{type},
+			new FakeHandler(type, properties)
+		);
+	}
+
+	public static <T> T fake(Class<T> type)
+	{
+		return fake(type, Map.of());
+	}
+
+	/**
+	 * Create a config where every item returns its default, unless
+	 * overridden in values (keyed by method name). Values are read
+	 * on every call, so the map can be changed later.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends Config> T config(Class<T> type, Map<String, Object> values)
+	{
+		return (T) Proxy.newProxyInstance(
+			type.getClassLoader(),
+			new Class<?>[]{type},
+			(proxy, method, args) -> {
+				if (method.getDeclaringClass() == Object.class)
+				{
+					return invokeObjectMethod(type, proxy, method, args);
+				}
+
+				if (values.containsKey(method.getName()))
+				{
+					return values.get(method.getName());
+				}
+
+				if (method.isDefault())
+				{
+					return invokeDefault(proxy, method, args);
+				}
+
+				return defaultValue(method.getReturnType());
+			}
+		);
+	}
+
+	public static <T extends Config> T config(Class<T> type)
+	{
+		return config(type, Map.of());
+	}
+
+	public static NPC npc(int index, int id, String name, WorldPoint location)
+	{
+		return fake(NPC.class, Map.of(
+			"index", index,
+			"id", id,
+			"name", name,
+			"worldLocation", location
+		));
+	}
+
+	public static GameObject gameObject(int id, String name, WorldPoint location)
+	{
+		return fake(GameObject.class, Map.of(
+			"id", id,
+			"name", name,
+			"worldLocation", location
+		));
+	}
+
+	public static ItemComposition itemComposition(int id, String name)
+	{
+		return fake(ItemComposition.class, Map.of(
+			"id", id,
+			"name", name
+		));
+	}
+
+	public static MenuEntry menuEntry(String option, String target)
+	{
+		return fake(MenuEntry.class, Map.of(
+			"option", option,
+			"target", target
+		));
+	}
+
+	/**
+	 * A visible widget
+	 */
+	public static Widget widget(int groupId, int childId)
+	{
+		return fake(Widget.class, Map.of(
+			"id", groupId << 16 | childId,
+			"hidden", false,
+			"selfHidden", false,
+			"visible", true
+		));
+	}
+
+	/**
+	 * Default value of a method that hasn't been faked
+	 */
+	public static Object defaultValue(Class<?> type)
+	{
+		if (type == boolean.class)
+		{
+			return false;
+		}
+
+		if (type == long.class)
+		{
+			return 0L;
+		}
+
+		if (type == float.class)
+		{
+			return 0f;
+		}
+
+		if (type == double.class)
+		{
+			return 0d;
+		}
+
+		if (type == char.class)
+		{
+			return '\0';
+		}
+
+		if (type == byte.class)
+		{
+			return (byte) 0;
+		}
+
+		if (type == short.class)
+		{
+			return (short) 0;
+		}
+
+		if (type.isPrimitive() && type != void.class)
+		{
+			return 0;
+		}
+
+		if (type.isArray())
+		{
+			return Array.newInstance(type.getComponentType(), 0);
+		}
+
+		if (type == Set.class)
+		{
+			return Set.of();
+		}
+
+		if (type == List.class || type == Collection.class)
+		{
+			return List.of();
+		}
+
+		if (type == Map.class)
+		{
+			return Map.of();
+		}
+
+		if (type == Optional.class)
+		{
+			return Optional.empty();
+		}
+
+		return null;
+	}
+
+	private static Object invokeDefault(Object proxy, Method method, Object[] args) throws Throwable
+	{
+		final var declaring = method.getDeclaringClass();
+		return MethodHandles.privateLookupIn(declaring, MethodHandles.lookup())
+			.unreflectSpecial(method, declaring)
+			.bindTo(proxy)
+			.invokeWithArguments(args == null ? new Object[0] : args);
+	}
+
+	private static Object invokeObjectMethod(Class<?> type, Object proxy, Method method, Object[] args)
+	{
+		switch (method.getName())
+		{
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			default:
+				return "Fake" + type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+		}
+	}
+
+	private static final class FakeHandler implements InvocationHandler
+	{
+		private final Class<?> type;
+		private final Map<String, Object> properties;
+
+		private FakeHandler(Class<?> type, Map<String, Object> properties)
+		{
+			this.type = type;
+			this.properties = properties;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			if (method.getDeclaringClass() == Object.class)
+			{
+				if (method.getName().equals("toString") && properties.containsKey("name"))
+				{
+					return "Fake" + type.getSimpleName() + "(" + resolve(properties.get("name"), args) + ")";
+				}
+
+				return invokeObjectMethod(type, proxy, method, args);
+			}
+
+			final var name = method.getName();
+			if (properties.containsKey(name))
+			{
+				return resolve(properties.get(name), args);
+			}
+
+			final var property = getPropertyName(name);
+			if (property != null)
+			{
+				if (name.startsWith("set") && args != null && args.length == 1)
+				{
+					properties.put(property, args[0]);
+					return method.getReturnType().isInstance(proxy) ? proxy : defaultValue(method.getReturnType());
+				}
+
+				if (properties.containsKey(property) && (args == null || args.length == 0))
+				{
+					return resolve(properties.get(property), args);
+				}
+			}
+
+			if (method.isDefault())
+			{
+				return invokeDefault(proxy, method, args);
+			}
+
+			return defaultValue(method.getReturnType());
+		}
+
+		private static Object resolve(Object value, Object[] args)
+		{
+			if (value instanceof Answer)
+			{
+				return ((Answer) value).answer(args);
+			}
+
+			if (value instanceof Supplier)
+			{
+				return ((Supplier<?>) value).get();
+			}
+
+			return value;
+		}
+
+		private static String getPropertyName(String method)
+		{
+			final int prefix;
+			if (method.startsWith("get") || method.startsWith("set"))
+			{
+				prefix = 3;
+			}
+			else if (method.startsWith("is"))
+			{
+				prefix = 2;
+			}
+			else
+			{
+				return null;
+			}
+
+			if (method.length() == prefix)
+			{
+				return null;
+			}
+
+			return Character.toLowerCase(method.charAt(prefix)) + method.substring(prefix + 1);
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package com.yfletch.occore.v2.testkit;
+
+import com.yfletch.occore.v2.CoreContext;
+import com.yfletch.occore.v2.recording.SessionLog;
+import com.yfletch.occore.v2.recording.SessionReader;
+import com.yfletch.occore.v2.snapshot.ItemContainerSnapshot;
+import com.yfletch.occore.v2.snapshot.WorldSnapshot;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Getter;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.GameObject;
+import net.runelite.api.InventoryID;
+import net.runelite.api.NPC;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.widgets.WidgetID;
+
+/**
+ * Feeds a recorded session back through a simulated runner. Rules
+ * read the exact snapshots that were recorded, and the fake client
+ * is kept in sync with them for rules that query the client directly.
+ * <p>
+ * Timings end up in the simulator's latency histograms (and the
+ * plugin's profiler, if enabled), so the same recording can be
+ * replayed before and after a change to compare them.
+ */
+public class SessionReplayer<TContext extends CoreContext> implements SessionLog.Visitor
+{
+	private final TickSimulator<TContext> simulator;
+
+	private WorldSnapshot snapshot = WorldSnapshot.EMPTY;
+
+	private final Map<Integer, NPC> npcs = new HashMap<>();
+	private final Map<String, GameObject> objects = new HashMap<>();
+
+	@Getter
+	private int ticks = 0;
+
+	@Getter
+	private int clicks = 0;
+
+	public SessionReplayer(TickSimulator<TContext> simulator)
+	{
+		this.simulator = simulator;
+		simulator.getHarness().setSnapshotSource(() -> snapshot);
+	}
+
+	/**
+	 * Replay a whole recording
+	 */
+	public void replay(Path file) throws IOException
+	{
+		SessionReader.open(file).read(this);
+	}
+
+	@Override
+	public void onSnapshot(WorldSnapshot snapshot)
+	{
+		this.snapshot = snapshot;
+
+		final var client = simulator.getClient();
+		setContainer(InventoryID.INVENTORY, snapshot.getInventory());
+		setContainer(InventoryID.BANK, snapshot.getBank());
+		setContainer(InventoryID.EQUIPMENT, snapshot.getEquipment());
+		client.setPlayerLocation(snapshot.getPlayerLocation());
+		client.setPlayerAnimation(snapshot.getAnimation());
+		for (var i = 0; i < snapshot.getVarbitCount(); i++)
+		{
+			client.setVarbit(snapshot.getVarbitId(i), snapshot.getVarbitValue(i));
+		}
+
+		if (snapshot.isBankOpen())
+		{
+			client.openWidget(WidgetID.BANK_GROUP_ID);
+		}
+		else
+		{
+			client.closeWidget(WidgetID.BANK_GROUP_ID);
+		}
+	}
+
+	@Override
+	public void onGameTick(int tick)
+	{
+		simulator.getClient().setTickCount(tick - 1);
+		simulator.tick();
+		ticks++;
+	}
+
+	@Override
+	public void onMenuClick(int tick, SessionLog.MenuClick click)
+	{
+		simulator.click(click.getOption(), click.getTarget());
+		clicks++;
+	}
+
+	@Override
+	public void onContainerChanged(int tick, int containerId, int[] ids, int[] quantities)
+	{
+		for (final var inventoryId : InventoryID.values())
+		{
+			if (inventoryId.getId() == containerId)
+			{
+				simulator.setContainer(inventoryId, ids, quantities);
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void onChatMessage(int tick, int type, String name, String message)
+	{
+		final var event = new ChatMessage();
+		event.setType(type >= 0 && type < ChatMessageType.values().length
+			? ChatMessageType.values()[type]
+			: ChatMessageType.UNKNOWN);
+		event.setName(name);
+		event.setMessage(message);
+		simulator.post(event);
+	}
+
+	@Override
+	public void onNpc(int tick, boolean spawned, int index, int id, String name, int x, int y, int plane)
+	{
+		if (spawned)
+		{
+			final var npc = Fakes.npc(index, id, name != null ? name : "", new WorldPoint(x, y, plane));
+			npcs.put(index, npc);
+			simulator.spawn(npc);
+			return;
+		}
+
+		final var npc = npcs.remove(index);
+		if (npc != null)
+		{
+			simulator.despawn(npc);
+		}
+	}
+
+	@Override
+	public void onObject(int tick, boolean spawned, int id, int x, int y, int plane)
+	{
+		final var key = id + ":" + x + ":" + y + ":" + plane;
+		if (spawned)
+		{
+			final var object = Fakes.gameObject(id, "Object " + id, new WorldPoint(x, y, plane));
+			objects.put(key, object);
+			simulator.spawn(object);
+			return;
+		}
+
+		final var object = objects.remove(key);
+		if (object != null)
+		{
+			simulator.despawn(object);
+		}
+	}
+
+	@Override
+	public void onItemName(int id, String name)
+	{
+		ItemContainerSnapshot.registerName(id, name);
+		simulator.getClient().setItemName(id, name);
+	}
+
+	private void setContainer(InventoryID inventoryId, ItemContainerSnapshot container)
+	{
+		final var ids = new int[container.size()];
+		final var quantities = new int[container.size()];
+		for (var slot = 0; slot < container.size(); slot++)
+		{
+			ids[slot] = container.getId(slot);
+			quantities[slot] = container.getQuantity(slot);
+		}
+
+		simulator.getClient().setContainer(inventoryId, ids, quantities);
+	}
+}
@@ -0,0 +1,293 @@
+package com.yfletch.occore.v2.testkit;
+
+import com.yfletch.occore.v2.CoreContext;
+import com.yfletch.occore.v2.EngineHarness;
+import com.yfletch.occore.v2.RunnerPlugin;
+import com.yfletch.occore.v2.overlay.BankItemDebugOverlay;
+import com.yfletch.occore.v2.overlay.EquipmentItemDebugOverlay;
+import com.yfletch.occore.v2.overlay.InventoryItemDebugOverlay;
+import com.yfletch.occore.v2.overlay.WorldDebug;
+import com.yfletch.occore.v2.overlay.WorldDebugOverlay;
+import com.yfletch.occore.v2.profiler.LatencyHistogram;
+import com.yfletch.occore.v2.rule.Rule;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import net.runelite.api.Client;
+import net.runelite.api.GameObject;
+import net.runelite.api.InventoryID;
+import net.runelite.api.NPC;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.GameObjectDespawned;
+import net.runelite.api.events.GameObjectSpawned;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.MenuOptionClicked;
+import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.client.eventbus.EventBus;
+
+/**
+ * Deterministic tick driver for any runner plugin. Events are posted
+ * through a real event bus to the plugin's own subscribers, with rules
+ * resolved synchronously, so a simulated tick does exactly what a live
+ * tick would - minus the client.
+ * <p>
+ * Exceptions thrown by subscribers are re-thrown from the call that
+ * posted the event.
+ */
+public class TickSimulator<TContext extends CoreContext>
+{
+	@Getter
+	private final FakeClient client;
+
+	@Getter
+	private final EngineHarness<TContext> harness;
+
+	private final EventBus eventBus;
+	private final List<Throwable> failures = new ArrayList<>();
+	private Exception lastResolutionFailure;
+
+	/**
+	 * Time taken to handle each simulated game tick
+	 */
+	@Getter
+	private final LatencyHistogram tickLatency = new LatencyHistogram();
+
+	/**
+	 * Time taken to handle each simulated click
+	 */
+	@Getter
+	private final LatencyHistogram clickLatency = new LatencyHistogram();
+
+	private TickSimulator(RunnerPlugin<TContext> plugin, TContext context, FakeClient client)
+	{
+		this.client = client;
+		this.eventBus = new EventBus(failures::add);
+		this.harness = new EngineHarness<>(plugin, context);
+
+		eventBus.register(plugin);
+		eventBus.register(plugin.getStateTracker());
+		plugin.getStateTracker().markAll();
+	}
+
+	/**
+	 * Create a plugin, its context and everything they inject,
+	 * backed by a new fake client
+	 */
+	public static <TContext extends CoreContext, TPlugin extends RunnerPlugin<TContext>> TickSimulator<TContext> create(
+		Class<TPlugin> pluginType,
+		Class<TContext> contextType
+	)
+	{
+		return create(pluginType, contextType, new FakeInjector());
+	}
+
+	/**
+	 * Create a plugin, its context and everything they inject, using
+	 * a pre-configured injector (e.g. with config values set)
+	 */
+	public static <TContext extends CoreContext, TPlugin extends RunnerPlugin<TContext>> TickSimulator<TContext> create(
+		Class<TPlugin> pluginType,
+		Class<TContext> contextType,
+		FakeInjector injector
+	)
+	{
+		final var client = new FakeClient();
+		client.install();
+		injector.bind(Client.class, client.getClient());
+		injector.bind(FakeClient.class, client);
+
+		final var plugin = injector.getInstance(pluginType);
+		final var context = injector.getInstance(contextType);
+		if (plugin == null || context == null)
+		{
+			throw new IllegalArgumentException("Plugin and context must be classes from this project");
+		}
+
+		// interactions highlight their targets when queued
+		WorldDebug.setWorldOverlay(injector.getInstance(WorldDebugOverlay.class));
+		WorldDebug.setBankItemDebugOverlay(injector.getInstance(BankItemDebugOverlay.class));
+		WorldDebug.setInventoryItemDebugOverlay(injector.getInstance(InventoryItemDebugOverlay.class));
+		WorldDebug.setEquipmentItemDebugOverlay(injector.getInstance(EquipmentItemDebugOverlay.class));
+
+		return new TickSimulator<>(plugin, context, client);
+	}
+
+	public TContext getContext()
+	{
+		return harness.getContext();
+	}
+
+	public Rule<TContext> getCurrentRule()
+	{
+		return harness.getCurrentRule();
+	}
+
+	/**
+	 * Simulate a game tick
+	 */
+	public TickSimulator<TContext> tick()
+	{
+		client.nextTick();
+
+		final var start = System.nanoTime();
+		post(new GameTick());
+		tickLatency.record(System.nanoTime() - start);
+		return this;
+	}
+
+	public TickSimulator<TContext> ticks(int amount)
+	{
+		for (var i = 0; i < amount; i++)
+		{
+			tick();
+		}
+
+		return this;
+	}
+
+	/**
+	 * Simulate a click on the one-click menu entry
+	 */
+	public TickSimulator<TContext> click()
+	{
+		final var rule = getCurrentRule();
+		final var target = rule != null && rule.name() != null ? rule.name() : "";
+		return click("* Simulated", target);
+	}
+
+	/**
+	 * Simulate a click on a menu entry. One-click entries
+	 * start with "* ".
+	 */
+	public TickSimulator<TContext> click(String option, String target)
+	{
+		final var start = System.nanoTime();
+		post(new MenuOptionClicked(Fakes.menuEntry(option, target)));
+		clickLatency.record(System.nanoTime() - start);
+		return this;
+	}
+
+	public TickSimulator<TContext> setInventory(int[] ids, int[] quantities)
+	{
+		return setContainer(InventoryID.INVENTORY, ids, quantities);
+	}
+
+	public TickSimulator<TContext> setBank(int[] ids, int[] quantities)
+	{
+		return setContainer(InventoryID.BANK, ids, quantities);
+	}
+
+	public TickSimulator<TContext> setEquipment(int[] ids, int[] quantities)
+	{
+		return setContainer(InventoryID.EQUIPMENT, ids, quantities);
+	}
+
+	public TickSimulator<TContext> setContainer(InventoryID inventoryId, int[] ids, int[] quantities)
+	{
+		final var container = client.setContainer(inventoryId, ids, quantities);
+		post(new ItemContainerChanged(inventoryId.getId(), container));
+		return this;
+	}
+
+	public TickSimulator<TContext> movePlayer(WorldPoint location)
+	{
+		client.setPlayerLocation(location);
+		return this;
+	}
+
+	public TickSimulator<TContext> setAnimation(int animation)
+	{
+		client.setPlayerAnimation(animation);
+		return this;
+	}
+
+	public TickSimulator<TContext> setVarbit(int varbitId, int value)
+	{
+		client.setVarbit(varbitId, value);
+
+		final var event = new VarbitChanged();
+		event.setVarbitId(varbitId);
+		event.setValue(value);
+		post(event);
+		return this;
+	}
+
+	public TickSimulator<TContext> openWidget(int groupId)
+	{
+		client.openWidget(groupId);
+
+		final var event = new WidgetLoaded();
+		event.setGroupId(groupId);
+		post(event);
+		return this;
+	}
+
+	public TickSimulator<TContext> closeWidget(int groupId)
+	{
+		client.closeWidget(groupId);
+		post(new WidgetClosed(groupId, 0, true));
+		return this;
+	}
+
+	public TickSimulator<TContext> spawn(NPC npc)
+	{
+		client.getNpcs().add(npc);
+		post(new NpcSpawned(npc));
+		return this;
+	}
+
+	public TickSimulator<TContext> despawn(NPC npc)
+	{
+		client.getNpcs().remove(npc);
+		post(new NpcDespawned(npc));
+		return this;
+	}
+
+	public TickSimulator<TContext> spawn(GameObject object)
+	{
+		client.getObjects().add(object);
+
+		final var event = new GameObjectSpawned();
+		event.setGameObject(object);
+		post(event);
+		return this;
+	}
+
+	public TickSimulator<TContext> despawn(GameObject object)
+	{
+		client.getObjects().remove(object);
+
+		final var event = new GameObjectDespawned();
+		event.setGameObject(object);
+		post(event);
+		return this;
+	}
+
+	/**
+	 * Post any event to the plugin
+	 */
+	public void post(Object event)
+	{
+		eventBus.post(event);
+
+		final var scheduler = harness.getPlugin().getScheduler();
+		final var resolutionFailure = scheduler.getLastFailure();
+		if (resolutionFailure != null && resolutionFailure != lastResolutionFailure)
+		{
+			lastResolutionFailure = resolutionFailure;
+			failures.add(resolutionFailure);
+		}
+
+		if (!failures.isEmpty())
+		{
+			final var failure = failures.get(0);
+			failures.clear();
+			throw new IllegalStateException("Subscriber failed handling " + event.getClass().getSimpleName(), failure);
+		}
+	}
+}
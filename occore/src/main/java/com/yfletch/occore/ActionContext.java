@@ -3,7 +3,9 @@ package com.yfletch.occore;
 import com.google.inject.Inject;
 import com.yfletch.occore.util.ObjectHelper;
 import com.yfletch.occore.util.RegionPoint;
-import java.util.ArrayList;
+import com.yfletch.occore.v2.context.ContextKey;
+import com.yfletch.occore.v2.context.KeyStore;
+import com.yfletch.occore.v2.timer.Timers;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -35,8 +37,10 @@ public class ActionContext
 	@Inject
 	private ObjectHelper objectHelper;
 
-	private final Map<String, Boolean> flags = new HashMap<>();
-	private final Map<String, Integer> ephemeral = new HashMap<>();
+	@Getter
+	private final Timers timers = new Timers();
+
+	private final KeyStore<Boolean> flags = new KeyStore<>(timers.getTicks(), () -> {});
 
 	@Setter(AccessLevel.PACKAGE)
 	@Getter
@@ -47,8 +51,7 @@ public class ActionContext
 	 */
 	public void flag(String key, Boolean value)
 	{
-		flags.put(key, value);
-		ephemeral.remove(key);
+		flags.put(ContextKey.intern(key), value);
 	}
 
 	/**
@@ -57,8 +60,17 @@ public class ActionContext
 	 */
 	public void flag(String key, Boolean value, int ticks)
 	{
-		flag(key, value);
-		ephemeral.put(key, ticks);
+		flags.put(ContextKey.intern(key), value, ticks);
+	}
+
+	public void flag(ContextKey<Boolean> key, boolean value)
+	{
+		flags.put(key.getIndex(), value);
+	}
+
+	public void flag(ContextKey<Boolean> key, boolean value, int ticks)
+	{
+		flags.put(key.getIndex(), value, ticks);
 	}
 
 	/**
@@ -67,7 +79,18 @@ public class ActionContext
 	 */
 	public Boolean flag(String key)
 	{
-		return flags.getOrDefault(key, false);
+		return flag(ContextKey.intern(key));
+	}
+
+	public boolean flag(ContextKey<Boolean> key)
+	{
+		return flag(key.getIndex());
+	}
+
+	private boolean flag(int index)
+	{
+		final var value = flags.get(index);
+		return value != null && value;
 	}
 
 	public void tick()
@@ -76,27 +99,18 @@ public class ActionContext
 	}
 
 	/**
-	 * Decay ephemeral flags each tick.
+	 * Run timers that are due, including ephemeral
+	 * flag expiry.
 	 */
 	public void tick(boolean isGameTick)
 	{
 		if (!isGameTick)
 		{
+			timers.poll();
 			return;
 		}
 
-		for (Map.Entry<String, Integer> entry : new ArrayList<>(ephemeral.entrySet()))
-		{
-			if (entry.getValue() < 1)
-			{
-				ephemeral.remove(entry.getKey());
-				flags.remove(entry.getKey());
-			}
-			else
-			{
-				ephemeral.put(entry.getKey(), entry.getValue() - 1);
-			}
-		}
+		timers.tick();
 	}
 
 	/**
@@ -104,8 +118,7 @@ public class ActionContext
 	 */
 	public void clearFlag(String key)
 	{
-		flags.remove(key);
-		ephemeral.remove(key);
+		flags.remove(ContextKey.intern(key));
 	}
 
 	/**
@@ -114,7 +127,6 @@ public class ActionContext
 	 */
 	public void clearFlags()
 	{
-		ephemeral.clear();
 		flags.clear();
 	}
 
@@ -125,14 +137,19 @@ public class ActionContext
 	public Map<String, String> getDebugFlags()
 	{
 		Map<String, String> debugFlags = new HashMap<>();
-		for (Map.Entry<String, Boolean> entry : flags.entrySet())
+		for (var i = 0; i < flags.limit(); i++)
 		{
+			if (!flags.has(i))
+			{
+				continue;
+			}
+
 			String ticksLeft = "";
-			if (ephemeral.containsKey(entry.getKey()))
+			if (flags.isEphemeral(i))
 			{
-				ticksLeft = " (" + ephemeral.get(entry.getKey()) + ")";
+				ticksLeft = " (" + flags.ticksLeft(i) + ")";
 			}
-			debugFlags.put(entry.getKey(), entry.getValue() + ticksLeft);
+			debugFlags.put(ContextKey.nameOf(i), flags.get(i) + ticksLeft);
 		}
 
 		return debugFlags;
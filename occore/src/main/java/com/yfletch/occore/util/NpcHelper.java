@@ -1,5 +1,7 @@
 package com.yfletch.occore.util;
 
+import com.yfletch.occore.v2.scene.NpcIndex;
+import java.util.List;
 import java.util.function.Predicate;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -40,6 +42,12 @@ public class NpcHelper
 	 */
 	public NPC getNearestTo(int[] npcIds, Locatable locatable)
 	{
+		NpcIndex index = NpcIndex.getShared();
+		if (index.isAttached())
+		{
+			return index.nearest(locatable.getWorldLocation(), npcIds);
+		}
+
 		return new NPCQuery().idEquals(npcIds).result(client).nearestTo(locatable);
 	}
 
@@ -56,6 +64,13 @@ public class NpcHelper
 	 */
 	public NPC getNearest(Predicate<NPC> predicate, Locatable locatable)
 	{
+		NpcIndex index = NpcIndex.getShared();
+		if (index.isAttached())
+		{
+			List<NPC> nearest = index.nearest(locatable.getWorldLocation(), 1, predicate);
+			return nearest.isEmpty() ? null : nearest.get(0);
+		}
+
 		return new NPCQuery().filter(predicate).result(client).nearestTo(locatable);
 	}
 
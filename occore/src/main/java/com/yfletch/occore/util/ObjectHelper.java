@@ -1,5 +1,6 @@
 package com.yfletch.occore.util;
 
+import com.yfletch.occore.v2.scene.SceneObjectIndex;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -48,6 +49,14 @@ public class ObjectHelper
 
 	public List<TileObject> where(int id, Predicate<TileObject> predicate)
 	{
+		SceneObjectIndex index = SceneObjectIndex.getShared();
+		if (index.isAttached())
+		{
+			return index.byId(id).stream()
+				.filter(predicate)
+				.collect(Collectors.toList());
+		}
+
 		return new ObjectQuery()
 			.idEquals(id)
 			.filter(predicate)
@@ -64,6 +73,11 @@ public class ObjectHelper
 
 	public LocatableQueryResults<TileObject> queryWhere(int id, Predicate<TileObject> predicate)
 	{
+		if (SceneObjectIndex.getShared().isAttached())
+		{
+			return new LocatableQueryResults<>(where(id, predicate));
+		}
+
 		return new ObjectQuery()
 			.idEquals(id)
 			.filter(predicate)
@@ -97,6 +111,12 @@ public class ObjectHelper
 	 */
 	public TileObject getNearest(int objectId, Locatable locatable)
 	{
+		SceneObjectIndex index = SceneObjectIndex.getShared();
+		if (index.isAttached())
+		{
+			return new LocatableQueryResults<>(index.byId(objectId)).nearestTo(locatable);
+		}
+
 		return new ObjectQuery()
 			.idEquals(objectId)
 			.result(client)
@@ -113,6 +133,12 @@ public class ObjectHelper
 
 	public List<TileObject> getAll(int... objectId)
 	{
+		SceneObjectIndex index = SceneObjectIndex.getShared();
+		if (index.isAttached())
+		{
+			return index.byId(objectId);
+		}
+
 		return new ObjectQuery()
 			.idEquals(objectId)
 			.result(client)
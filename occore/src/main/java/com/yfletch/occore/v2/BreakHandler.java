@@ -1,7 +1,9 @@
 package com.yfletch.occore.v2;
 
 import com.google.inject.Singleton;
+import com.yfletch.occore.v2.checkpoint.Checkpointable;
 import static com.yfletch.occore.v2.util.Util.formatTickTime;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -9,7 +11,7 @@ import net.unethicalite.api.commons.Rand;
 
 @Slf4j
 @Singleton
-public class BreakHandler
+public class BreakHandler implements Checkpointable<BreakHandler.State>
 {
 	@Setter private int interval;
 	@Setter private int duration;
@@ -62,10 +64,38 @@ public class BreakHandler
 		return minutes * 100;
 	}
 
+	@Override
+	public Class<State> getCheckpointType()
+	{
+		return State.class;
+	}
+
+	@Override
+	public State saveCheckpoint()
+	{
+		return new State(ticksToNextBreak, ticksRemainingInBreak, isInBreak);
+	}
+
+	@Override
+	public void restoreCheckpoint(State state)
+	{
+		ticksToNextBreak = state.ticksToNextBreak;
+		ticksRemainingInBreak = state.ticksRemainingInBreak;
+		isInBreak = state.isInBreak;
+	}
+
 	private int sway(int ticks)
 	{
 		// sway values by 15%
 		final var sway = (int) (ticks * 0.15d);
 		return ticks + Rand.nextInt(-sway, sway);
 	}
+
+	@AllArgsConstructor
+	public static class State
+	{
+		private final int ticksToNextBreak;
+		private final int ticksRemainingInBreak;
+		private final boolean isInBreak;
+	}
 }
@@ -0,0 +1,39 @@
+package com.yfletch.occore.v2;
+
+import java.util.function.Supplier;
+
+/**
+ * Immutable, pre-parsed copy of config values, built on first use
+ * and rebuilt whenever the plugin's config changes. Reading from it
+ * avoids going through the config proxy (and re-parsing values)
+ * every time a rule is checked.
+ */
+public final class ConfigSnapshot<T> implements Supplier<T>
+{
+	private final Supplier<T> factory;
+
+	private volatile T value;
+
+	ConfigSnapshot(Supplier<T> factory)
+	{
+		this.factory = factory;
+	}
+
+	@Override
+	public T get()
+	{
+		var current = value;
+		if (current == null)
+		{
+			current = factory.get();
+			value = current;
+		}
+
+		return current;
+	}
+
+	void rebuild()
+	{
+		value = factory.get();
+	}
+}
@@ -4,6 +4,7 @@ import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.ConfigSection;
 import net.runelite.client.config.Keybind;
+import net.runelite.client.config.Range;
 import net.runelite.client.config.Units;
 
 public interface CoreConfig extends Config
@@ -67,6 +68,33 @@ public interface CoreConfig extends Config
 		return 2;
 	}
 
+	@ConfigItem(
+		keyName = "resolutionBudget",
+		name = "Resolution budget",
+		description = "Maximum time to spend choosing the next action. When short on time, expensive rules are"
+			+ " checked on the next pass instead. Set to 0 for no limit.",
+		section = plugin,
+		position = 5
+	)
+	@Units(Units.MILLISECONDS)
+	default int resolutionBudget()
+	{
+		return 0;
+	}
+
+	@ConfigItem(
+		keyName = "resumeFromCheckpoint",
+		name = "Resume from checkpoint",
+		description = "Regularly save plugin state, and continue from it when the plugin is restarted"
+			+ " near where it was saved.",
+		section = plugin,
+		position = 6
+	)
+	default boolean resumeFromCheckpoint()
+	{
+		return true;
+	}
+
 	@ConfigSection(
 		name = "Breaks",
 		description = "Configure breaks",
@@ -229,4 +257,42 @@ public interface CoreConfig extends Config
 	{
 		return false;
 	}
+
+	@ConfigItem(
+		keyName = "profileRules",
+		name = "Profile rules",
+		description = "Record how long each rule takes, and show the most expensive rules on screen."
+			+ "<br/>Right-click the overlay to export the raw data to .runelite/occore/profiles",
+		section = debug,
+		position = 4
+	)
+	default boolean profileRules()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "recordSession",
+		name = "Record session",
+		description = "Record game events and state to .runelite/occore/recordings, so the session can be replayed offline",
+		section = debug,
+		position = 5
+	)
+	default boolean recordSession()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "recordingSize",
+		name = "Max recording size (MB)",
+		description = "Recording stops once the file reaches this size",
+		section = debug,
+		position = 6
+	)
+	@Range(min = 1, max = 1024)
+	default int recordingSize()
+	{
+		return 64;
+	}
 }
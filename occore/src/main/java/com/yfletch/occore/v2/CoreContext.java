@@ -1,19 +1,32 @@
 package com.yfletch.occore.v2;
 
+import com.yfletch.occore.v2.checkpoint.Checkpointable;
+import com.yfletch.occore.v2.context.ContextKey;
+import com.yfletch.occore.v2.context.KeyStore;
 import com.yfletch.occore.v2.interaction.Entities;
-import java.util.ArrayList;
+import com.yfletch.occore.v2.rule.DynamicRule;
+import com.yfletch.occore.v2.rule.StateDomain;
+import com.yfletch.occore.v2.snapshot.WorldSnapshot;
+import com.yfletch.occore.v2.timer.Timers;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 
-public class CoreContext
+public class CoreContext implements Checkpointable<CoreContext.State>
 {
-	private final Map<String, Boolean> flags = new HashMap<>();
-	private final Map<String, Integer> ephemeralFlags = new HashMap<>();
-	private final Map<String, String> args = new HashMap<>();
-	private final Map<String, Integer> ephemeralArgs = new HashMap<>();
+	/**
+	 * Tick and millisecond timers, advanced with this context
+	 */
+	@Getter
+	private final Timers timers = new Timers();
+
+	private final KeyStore<Boolean> flags = new KeyStore<>(timers.getTicks(), this::changed);
+	private final KeyStore<String> args = new KeyStore<>(timers.getTicks(), this::changed);
 
 	@Setter
 	private RunnerPlugin<?> plugin;
@@ -26,13 +39,163 @@ public class CoreContext
 	@Getter
 	private int minDelayTimer = 0;
 
+	/**
+	 * Game state captured at the start of the current game tick
+	 * or menu click, along with the state domain versions at the
+	 * time. Prefer reading from this in rule predicates over
+	 * querying the client directly.
+	 */
+	private volatile CapturedSnapshot captured = new CapturedSnapshot(WorldSnapshot.EMPTY, null);
+
+	/**
+	 * Isolated pass (and predicted snapshot, if any), visible only
+	 * to the thread evaluating rules in it
+	 */
+	private final ThreadLocal<Scope> scope = new ThreadLocal<>();
+
+	/**
+	 * Incremented at the start of each rule resolution pass. Anything
+	 * cached against this value is valid until the next pass.
+	 */
+	private final AtomicLong resolutionPass = new AtomicLong();
+
+	/**
+	 * Decremented for each isolated pass, so they never share a
+	 * value with a resolution pass (or each other). -1 is left
+	 * for "never checked".
+	 */
+	private final AtomicLong isolatedPass = new AtomicLong(-2);
+
+	public WorldSnapshot getSnapshot()
+	{
+		final var current = scope.get();
+		return current != null && current.predicted != null
+			? current.predicted
+			: captured.snapshot;
+	}
+
+	/**
+	 * Replace the snapshot. Must be called on the client thread,
+	 * so the domain versions match what the snapshot holds.
+	 */
+	void setSnapshot(WorldSnapshot snapshot)
+	{
+		captured = new CapturedSnapshot(
+			snapshot,
+			plugin != null ? plugin.getStateTracker().capture() : null
+		);
+	}
+
+	/**
+	 * Whether rules are currently being checked against a
+	 * predicted snapshot on this thread
+	 */
+	public boolean isSpeculating()
+	{
+		final var current = scope.get();
+		return current != null && current.predicted != null;
+	}
+
+	/**
+	 * Run a task on this thread with rules reading from a predicted
+	 * snapshot, in a pass of its own. Other threads still see the
+	 * real snapshot and the current resolution pass.
+	 */
+	<T> T speculate(WorldSnapshot predicted, Supplier<T> task)
+	{
+		return inScope(new Scope(predicted, isolatedPass.getAndDecrement()), task);
+	}
+
+	/**
+	 * Run a task on this thread in a pass of its own, so results
+	 * memoized in it aren't mixed with the resolution thread's
+	 */
+	<T> T isolate(Supplier<T> task)
+	{
+		return inScope(new Scope(null, isolatedPass.getAndDecrement()), task);
+	}
+
+	private <T> T inScope(Scope next, Supplier<T> task)
+	{
+		final var previous = scope.get();
+		scope.set(next);
+		try
+		{
+			return task.get();
+		}
+		finally
+		{
+			if (previous != null)
+			{
+				scope.set(previous);
+			}
+			else
+			{
+				scope.remove();
+			}
+		}
+	}
+
+	/**
+	 * Combined version of the state domains in the mask, for caching
+	 * results against. Snapshot domains are versioned as of the current
+	 * snapshot's capture. Returns -1 (don't cache) while speculating,
+	 * or if this context isn't attached to a runner.
+	 */
+	public long getStamp(int mask)
+	{
+		if (plugin == null || isSpeculating())
+		{
+			return -1;
+		}
+
+		return plugin.getStateTracker().stamp(mask, captured.versions);
+	}
+
+	/**
+	 * Current resolution pass, or this thread's isolated pass
+	 * while speculating or isolated
+	 */
+	public long getResolutionPass()
+	{
+		final var current = scope.get();
+		return current != null ? current.pass : resolutionPass.get();
+	}
+
+	void nextResolutionPass()
+	{
+		resolutionPass.incrementAndGet();
+	}
+
+	/**
+	 * Let the runner know that flags or args have changed,
+	 * so rules reading from context are checked again
+	 */
+	private void changed()
+	{
+		if (plugin != null)
+		{
+			plugin.getStateTracker().mark(StateDomain.CONTEXT);
+		}
+	}
+
 	/**
 	 * Persist a flag in context.
 	 */
 	public void flag(String key, Boolean value)
 	{
-		flags.put(key, value);
-		ephemeralFlags.remove(key);
+		setFlag(ContextKey.intern(key), value);
+	}
+
+	public void flag(ContextKey<Boolean> key, boolean value)
+	{
+		setFlag(key.getIndex(), value);
+	}
+
+	private void setFlag(int index, Boolean value)
+	{
+		flags.put(index, value);
+		changed();
 	}
 
 	/**
@@ -41,8 +204,18 @@ public class CoreContext
 	 */
 	public void flag(String key, Boolean value, int ticks)
 	{
-		flag(key, value);
-		ephemeralFlags.put(key, ticks);
+		setFlag(ContextKey.intern(key), value, ticks);
+	}
+
+	public void flag(ContextKey<Boolean> key, boolean value, int ticks)
+	{
+		setFlag(key.getIndex(), value, ticks);
+	}
+
+	private void setFlag(int index, Boolean value, int ticks)
+	{
+		flags.put(index, value, ticks);
+		changed();
 	}
 
 	/**
@@ -51,17 +224,37 @@ public class CoreContext
 	 */
 	public Boolean flag(String key)
 	{
-		return flags.getOrDefault(key, false);
+		return getFlag(ContextKey.intern(key));
 	}
 
+	public boolean flag(ContextKey<Boolean> key)
+	{
+		return getFlag(key.getIndex());
+	}
+
+	private boolean getFlag(int index)
+	{
+		final var value = flags.get(index);
+		return value != null && value;
+	}
 
 	/**
 	 * Persist an arg in context.
 	 */
 	public void arg(String key, String value)
 	{
-		args.put(key, value);
-		ephemeralArgs.remove(key);
+		setArg(ContextKey.intern(key), value);
+	}
+
+	public void arg(ContextKey<String> key, String value)
+	{
+		setArg(key.getIndex(), value);
+	}
+
+	private void setArg(int index, String value)
+	{
+		args.put(index, value);
+		changed();
 	}
 
 	/**
@@ -70,8 +263,18 @@ public class CoreContext
 	 */
 	public void arg(String key, String value, int ticks)
 	{
-		arg(key, value);
-		ephemeralArgs.put(key, ticks);
+		setArg(ContextKey.intern(key), value, ticks);
+	}
+
+	public void arg(ContextKey<String> key, String value, int ticks)
+	{
+		setArg(key.getIndex(), value, ticks);
+	}
+
+	private void setArg(int index, String value, int ticks)
+	{
+		args.put(index, value, ticks);
+		changed();
 	}
 
 	/**
@@ -80,7 +283,18 @@ public class CoreContext
 	 */
 	public String arg(String key)
 	{
-		return args.getOrDefault(key, "");
+		return getArg(ContextKey.intern(key));
+	}
+
+	public String arg(ContextKey<String> key)
+	{
+		return getArg(key.getIndex());
+	}
+
+	private String getArg(int index)
+	{
+		final var value = args.get(index);
+		return value != null ? value : "";
 	}
 
 	public void tick()
@@ -89,40 +303,18 @@ public class CoreContext
 	}
 
 	/**
-	 * Decay ephemeral flags each tick.
+	 * Run timers that are due, including ephemeral
+	 * flag and arg expiry.
 	 */
 	public void tick(boolean isGameTick)
 	{
 		if (!isGameTick)
 		{
+			timers.poll();
 			return;
 		}
 
-		for (Map.Entry<String, Integer> entry : new ArrayList<>(ephemeralFlags.entrySet()))
-		{
-			if (entry.getValue() < 1)
-			{
-				ephemeralFlags.remove(entry.getKey());
-				flags.remove(entry.getKey());
-			}
-			else
-			{
-				ephemeralFlags.put(entry.getKey(), entry.getValue() - 1);
-			}
-		}
-
-		for (Map.Entry<String, Integer> entry : new ArrayList<>(ephemeralArgs.entrySet()))
-		{
-			if (entry.getValue() < 1)
-			{
-				ephemeralArgs.remove(entry.getKey());
-				args.remove(entry.getKey());
-			}
-			else
-			{
-				ephemeralArgs.put(entry.getKey(), entry.getValue() - 1);
-			}
-		}
+		timers.tick();
 	}
 
 	public void tickDelays()
@@ -143,11 +335,19 @@ public class CoreContext
 	 */
 	public void clear(String key)
 	{
-		flags.remove(key);
-		ephemeralFlags.remove(key);
+		clearKey(ContextKey.intern(key));
+	}
+
+	public void clear(ContextKey<?> key)
+	{
+		clearKey(key.getIndex());
+	}
 
-		args.remove(key);
-		ephemeralArgs.remove(key);
+	private void clearKey(int index)
+	{
+		flags.remove(index);
+		args.remove(index);
+		changed();
 	}
 
 	/**
@@ -156,8 +356,8 @@ public class CoreContext
 	 */
 	public void clear()
 	{
-		ephemeralFlags.clear();
 		flags.clear();
+		changed();
 	}
 
 	/**
@@ -175,6 +375,65 @@ public class CoreContext
 					? plugin.getCurrentRule().name()
 					: "Thinking..."
 			);
+
+			final var scheduler = plugin.getScheduler();
+			lines.put(
+				"resolution",
+				scheduler.getPending() + " pending, "
+					+ scheduler.getLastWait() / 1_000_000 + "ms wait, "
+					+ scheduler.getCoalesced() + " coalesced"
+			);
+
+			final var state = plugin.getStateMachine().getCurrent();
+			if (state != null)
+			{
+				lines.put(
+					"state",
+					state.getName() + " (" + plugin.getStateMachine().getTransitions() + " transitions)"
+				);
+			}
+
+			lines.put(
+				"speculation",
+				plugin.getSpeculationHits() + " hit, "
+					+ plugin.getSpeculationMisses() + " missed"
+			);
+
+			var cacheHits = 0L;
+			var cacheMisses = 0L;
+			for (final var rule : plugin.getRules())
+			{
+				if (rule instanceof DynamicRule)
+				{
+					cacheHits += ((DynamicRule<?>) rule).getCacheHits();
+					cacheMisses += ((DynamicRule<?>) rule).getCacheMisses();
+				}
+			}
+
+			if (cacheHits + cacheMisses > 0)
+			{
+				lines.put("rule cache", cacheHits + " hit, " + cacheMisses + " missed");
+			}
+
+			final var budget = plugin.getBudget();
+			if (budget.getBudget() > 0)
+			{
+				lines.put(
+					"budget",
+					budget.getLastPassTime() / 1_000_000 + "/" + budget.getBudget() / 1_000_000 + "ms, "
+						+ budget.getOverruns() + " overruns, "
+						+ budget.getDeferredChecks() + " deferred"
+				);
+			}
+
+			for (final var group : plugin.getGroups())
+			{
+				final var result = group.getLastResult();
+				lines.put(
+					"group: " + group.getName(),
+					result == null ? "-" : (result ? "pass" : "fail")
+				);
+			}
 		}
 
 
@@ -198,28 +457,120 @@ public class CoreContext
 			);
 		}
 
-		for (Map.Entry<String, Boolean> entry : flags.entrySet())
+		addDebugLines(lines, flags);
+		addDebugLines(lines, args);
+
+		return lines;
+	}
+
+	@Override
+	public Class<State> getCheckpointType()
+	{
+		return State.class;
+	}
+
+	@Override
+	public State saveCheckpoint()
+	{
+		final var state = new State();
+		save(flags, state.flags, state.flagTicks);
+		save(args, state.args, state.argTicks);
+		return state;
+	}
+
+	@Override
+	public void restoreCheckpoint(State state)
+	{
+		if (state.flags != null)
+		{
+			state.flags.forEach((key, value) -> restore(flags, key, value, state.flagTicks));
+		}
+
+		if (state.args != null)
+		{
+			state.args.forEach((key, value) -> restore(args, key, value, state.argTicks));
+		}
+
+		changed();
+	}
+
+	private static <T> void save(KeyStore<T> store, Map<String, T> values, Map<String, Integer> ticks)
+	{
+		for (var i = 0; i < store.limit(); i++)
 		{
-			var ticksLeft = "";
-			if (ephemeralFlags.containsKey(entry.getKey()))
+			if (!store.has(i))
 			{
-				ticksLeft = " (" + ephemeralFlags.get(entry.getKey()) + ")";
+				continue;
 			}
 
-			lines.put(entry.getKey(), entry.getValue() + ticksLeft);
+			final var key = ContextKey.nameOf(i);
+			values.put(key, store.get(i));
+			if (store.isEphemeral(i))
+			{
+				ticks.put(key, store.ticksLeft(i));
+			}
 		}
+	}
+
+	private static <T> void restore(KeyStore<T> store, String key, T value, Map<String, Integer> ticks)
+	{
+		final var index = ContextKey.intern(key);
+		final var ticksLeft = ticks != null ? ticks.get(key) : null;
+		if (ticksLeft != null)
+		{
+			store.put(index, value, ticksLeft);
+		}
+		else
+		{
+			store.put(index, value);
+		}
+	}
+
+	/**
+	 * Flags and args saved in a checkpoint
+	 */
+	public static class State
+	{
+		private final Map<String, Boolean> flags = new HashMap<>();
+		private final Map<String, Integer> flagTicks = new HashMap<>();
+		private final Map<String, String> args = new HashMap<>();
+		private final Map<String, Integer> argTicks = new HashMap<>();
+	}
+
+	@AllArgsConstructor
+	private static final class CapturedSnapshot
+	{
+		private final WorldSnapshot snapshot;
+
+		/**
+		 * State domain versions when the snapshot was
+		 * captured, or null if unknown
+		 */
+		private final int[] versions;
+	}
+
+	@AllArgsConstructor
+	private static final class Scope
+	{
+		/**
+		 * Snapshot to read from, or null for the real one
+		 */
+		private final WorldSnapshot predicted;
+
+		private final long pass;
+	}
 
-		for (Map.Entry<String, String> entry : args.entrySet())
+	private static void addDebugLines(Map<String, String> lines, KeyStore<?> store)
+	{
+		for (var i = 0; i < store.limit(); i++)
 		{
-			var ticksLeft = "";
-			if (ephemeralArgs.containsKey(entry.getKey()))
+			if (!store.has(i))
 			{
-				ticksLeft = " (" + ephemeralArgs.get(entry.getKey()) + ")";
+				continue;
 			}
 
-			lines.put(entry.getKey(), entry.getValue() + ticksLeft);
+			final var ticksLeft = store.isEphemeral(i) ? " (" + store.ticksLeft(i) + ")" : "";
+			lines.put(ContextKey.nameOf(i), store.get(i) + ticksLeft);
 		}
-
-		return lines;
 	}
 }
@@ -0,0 +1,29 @@
+package com.yfletch.occore.v2;
+
+import lombok.Value;
+
+/**
+ * Core config values read while handling ticks and clicks
+ */
+@Value
+public class CoreSettings
+{
+	boolean enabled;
+	PluginAPI pluginApi;
+	boolean enableBreaks;
+	boolean debugRawMenuEntries;
+	boolean debugOCMenuEntries;
+	boolean resumeFromCheckpoint;
+
+	static CoreSettings of(CoreConfig config)
+	{
+		return new CoreSettings(
+			config.enabled(),
+			config.pluginApi(),
+			config.enableBreaks(),
+			config.debugRawMenuEntries(),
+			config.debugOCMenuEntries(),
+			config.resumeFromCheckpoint()
+		);
+	}
+}
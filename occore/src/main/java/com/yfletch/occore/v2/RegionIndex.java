@@ -0,0 +1,80 @@
+package com.yfletch.occore.v2;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Maps map region IDs to the region-scoped rule groups active in
+ * each region, so checking whether a group applies at the player's
+ * location is a single lookup no matter how many groups there are.
+ */
+public class RegionIndex
+{
+	private static final int REGION_SIZE = 64;
+
+	private final Map<Integer, BitSet> groupsByRegion = new HashMap<>();
+	private int groups = 0;
+
+	/**
+	 * Register a group that is active in any of the regions,
+	 * returning its ID in this index
+	 */
+	public int register(int... regionIds)
+	{
+		final var id = groups++;
+		for (final var regionId : regionIds)
+		{
+			groupsByRegion.computeIfAbsent(regionId, key -> new BitSet()).set(id);
+		}
+
+		return id;
+	}
+
+	/**
+	 * Register a group that is active in every region
+	 * the area overlaps, returning its ID in this index
+	 */
+	public int register(WorldArea area)
+	{
+		final var minX = area.getX() / REGION_SIZE;
+		final var minY = area.getY() / REGION_SIZE;
+		final var maxX = (area.getX() + area.getWidth() - 1) / REGION_SIZE;
+		final var maxY = (area.getY() + area.getHeight() - 1) / REGION_SIZE;
+
+		final var regionIds = new int[(maxX - minX + 1) * (maxY - minY + 1)];
+		var i = 0;
+		for (var x = minX; x <= maxX; x++)
+		{
+			for (var y = minY; y <= maxY; y++)
+			{
+				// same packing as WorldPoint#getRegionID
+				regionIds[i++] = x << 8 | y;
+			}
+		}
+
+		return register(regionIds);
+	}
+
+	/**
+	 * Whether the group is active at a location
+	 */
+	public boolean isActive(int id, WorldPoint location)
+	{
+		if (location == null)
+		{
+			return false;
+		}
+
+		final var active = groupsByRegion.get(location.getRegionID());
+		return active != null && active.get(id);
+	}
+
+	public void clear()
+	{
+		groupsByRegion.clear();
+		groups = 0;
+	}
+}
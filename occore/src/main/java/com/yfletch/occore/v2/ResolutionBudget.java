@@ -0,0 +1,136 @@
+package com.yfletch.occore.v2;
+
+import com.yfletch.occore.v2.rule.CostClass;
+import com.yfletch.occore.v2.rule.Rule;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+
+/**
+ * Time budget for a single resolution pass. As a pass runs low on
+ * time, rule checks are deferred to the next pass based on their
+ * {@link CostClass}. The pass stops at the first deferred rule, since
+ * no rule below it can be used until it has been checked.
+ * <p>
+ * Rules deferred in a pass are always checked in the passes that
+ * follow, until a pass completes without deferring anything - so
+ * every rule is eventually checked.
+ */
+public class ResolutionBudget
+{
+	/**
+	 * Budget per pass in nanoseconds, or 0 for no budget
+	 */
+	@Getter
+	private volatile long budget = 0;
+
+	private long passStart;
+
+	private final Set<Rule<?>> exempt = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final Set<Rule<?>> deferred = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	private final AtomicLong overruns = new AtomicLong();
+	private final AtomicLong deferredChecks = new AtomicLong();
+	private volatile long lastPassTime = 0;
+
+	public void setBudgetMillis(int millis)
+	{
+		budget = Math.max(0, millis) * 1_000_000L;
+	}
+
+	void begin()
+	{
+		passStart = System.nanoTime();
+		deferred.clear();
+	}
+
+	/**
+	 * Whether checking this rule should be left to the next pass.
+	 * Deferred rules are remembered until the end of the pass.
+	 */
+	boolean shouldDefer(Rule<?> rule)
+	{
+		final var limit = budget;
+		if (limit == 0 || exempt.contains(rule))
+		{
+			return false;
+		}
+
+		final var elapsed = System.nanoTime() - passStart;
+		final var cost = rule.cost();
+		final var defer = cost == CostClass.EXPENSIVE && elapsed >= limit / 2
+			|| cost == CostClass.NORMAL && elapsed >= limit;
+
+		if (defer)
+		{
+			deferred.add(rule);
+			deferredChecks.incrementAndGet();
+		}
+
+		return defer;
+	}
+
+	/**
+	 * Whether a rule was deferred in the current pass, so
+	 * it didn't get to check every rule it needed to
+	 */
+	boolean isCutShort()
+	{
+		return !deferred.isEmpty();
+	}
+
+	/**
+	 * Finish the pass and record its metrics. Returns true if any
+	 * rules were deferred, in which case another pass is needed.
+	 */
+	boolean end()
+	{
+		lastPassTime = System.nanoTime() - passStart;
+		if (budget > 0 && lastPassTime > budget)
+		{
+			overruns.incrementAndGet();
+		}
+
+		if (deferred.isEmpty())
+		{
+			exempt.clear();
+			return false;
+		}
+
+		exempt.addAll(deferred);
+		deferred.clear();
+		return true;
+	}
+
+	void reset()
+	{
+		exempt.clear();
+		deferred.clear();
+	}
+
+	/**
+	 * Amount of passes that took longer than the budget
+	 */
+	public long getOverruns()
+	{
+		return overruns.get();
+	}
+
+	/**
+	 * Amount of rule checks deferred to a later pass
+	 */
+	public long getDeferredChecks()
+	{
+		return deferredChecks.get();
+	}
+
+	/**
+	 * Duration of the last pass in nanoseconds
+	 */
+	public long getLastPassTime()
+	{
+		return lastPassTime;
+	}
+}
@@ -0,0 +1,216 @@
+package com.yfletch.occore.v2;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs rule resolution passes off the client thread. Requests made
+ * while a pass is queued or running are coalesced - each request
+ * bumps a generation counter, and the pass that serves it covers
+ * every generation requested up to the point it started. Passes
+ * for superseded generations are never run.
+ * <p>
+ * All runners share a single resolution thread, which is created
+ * when the first runner starts and shut down when the last stops.
+ */
+@Slf4j
+public class ResolutionScheduler
+{
+	private static final Object SHARED_LOCK = new Object();
+	private static ExecutorService sharedExecutor;
+	private static int sharedUsers = 0;
+
+	private final Runnable pass;
+
+	private volatile Executor executor;
+	private boolean usingShared = false;
+
+	private final AtomicLong requested = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	/**
+	 * Time (System.nanoTime) of the oldest request that
+	 * hasn't been served yet, or 0
+	 */
+	private final AtomicLong oldestRequest = new AtomicLong();
+
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong passes = new AtomicLong();
+	private volatile long lastWait = 0;
+
+	/**
+	 * Most recent exception thrown by a pass, if any
+	 */
+	@Getter
+	private volatile Exception lastFailure;
+
+	public ResolutionScheduler(Runnable pass)
+	{
+		this.pass = pass;
+	}
+
+	/**
+	 * Start running passes on the shared resolution thread
+	 */
+	public void start()
+	{
+		synchronized (SHARED_LOCK)
+		{
+			if (usingShared)
+			{
+				return;
+			}
+
+			if (sharedExecutor == null)
+			{
+				sharedExecutor = Executors.newSingleThreadExecutor(runnable -> {
+					final var thread = new Thread(runnable, "occore-resolution");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+
+			sharedUsers++;
+			usingShared = true;
+			executor = sharedExecutor;
+		}
+	}
+
+	/**
+	 * Start running passes on the given executor, e.g. Runnable::run
+	 * to resolve synchronously
+	 */
+	public void start(Executor executor)
+	{
+		stop();
+		this.executor = executor;
+	}
+
+	/**
+	 * Stop accepting requests, and release the shared resolution
+	 * thread if this was the last runner using it
+	 */
+	public void stop()
+	{
+		synchronized (SHARED_LOCK)
+		{
+			executor = null;
+			if (!usingShared)
+			{
+				return;
+			}
+
+			usingShared = false;
+			sharedUsers--;
+			if (sharedUsers == 0)
+			{
+				sharedExecutor.shutdown();
+				sharedExecutor = null;
+			}
+		}
+	}
+
+	/**
+	 * Request a resolution pass. Returns immediately - if a pass is
+	 * already queued, it will serve this request too.
+	 */
+	public void request()
+	{
+		final var target = executor;
+		if (target == null)
+		{
+			return;
+		}
+
+		requested.incrementAndGet();
+		oldestRequest.compareAndSet(0, System.nanoTime());
+
+		if (scheduled.compareAndSet(false, true))
+		{
+			target.execute(this::drain);
+		}
+		else
+		{
+			coalesced.incrementAndGet();
+		}
+	}
+
+	private void drain()
+	{
+		while (true)
+		{
+			final var generation = requested.get();
+			final var requestedAt = oldestRequest.getAndSet(0);
+			if (requestedAt != 0)
+			{
+				lastWait = System.nanoTime() - requestedAt;
+			}
+
+			try
+			{
+				pass.run();
+			}
+			catch (Exception e)
+			{
+				lastFailure = e;
+				log.warn("Rule resolution failed", e);
+			}
+
+			completed.set(generation);
+			passes.incrementAndGet();
+
+			if (requested.get() != generation)
+			{
+				// requested again while running - serve all
+				// of those requests with one more pass
+				continue;
+			}
+
+			scheduled.set(false);
+
+			// a request may have come in between the check and
+			// clearing the flag, in which case it didn't schedule
+			// a pass - take it over if nobody else has
+			if (requested.get() == generation || !scheduled.compareAndSet(false, true))
+			{
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Amount of requests not yet served by a completed pass
+	 */
+	public long getPending()
+	{
+		return requested.get() - completed.get();
+	}
+
+	/**
+	 * Amount of requests that were merged into an already queued pass
+	 */
+	public long getCoalesced()
+	{
+		return coalesced.get();
+	}
+
+	public long getPasses()
+	{
+		return passes.get();
+	}
+
+	/**
+	 * Time in nanoseconds between the oldest request served by
+	 * the last pass and the start of that pass
+	 */
+	public long getLastWait()
+	{
+		return lastWait;
+	}
+}
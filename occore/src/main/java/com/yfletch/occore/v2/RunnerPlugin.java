@@ -1,6 +1,9 @@
 package com.yfletch.occore.v2;
 
 import com.google.inject.Inject;
+import com.yfletch.occore.v2.checkpoint.Checkpoints;
+import com.yfletch.occore.v2.fsm.RuleState;
+import com.yfletch.occore.v2.fsm.StateMachine;
 import com.yfletch.occore.v2.interaction.DeferredInteraction;
 import com.yfletch.occore.v2.interaction.Entities;
 import com.yfletch.occore.v2.overlay.BankItemDebugOverlay;
@@ -9,32 +12,52 @@ import com.yfletch.occore.v2.overlay.CoreStatisticsOverlay;
 import com.yfletch.occore.v2.overlay.EquipmentItemDebugOverlay;
 import com.yfletch.occore.v2.overlay.InteractionOverlay;
 import com.yfletch.occore.v2.overlay.InventoryItemDebugOverlay;
+import com.yfletch.occore.v2.overlay.RuleProfilerOverlay;
 import com.yfletch.occore.v2.overlay.WorldDebug;
 import com.yfletch.occore.v2.overlay.WorldDebugOverlay;
+import com.yfletch.occore.v2.profiler.RuleProfiler;
+import com.yfletch.occore.v2.recording.SessionRecorder;
 import com.yfletch.occore.v2.rule.DynamicRule;
 import com.yfletch.occore.v2.rule.RequirementRule;
 import com.yfletch.occore.v2.rule.Rule;
+import com.yfletch.occore.v2.rule.RuleGroup;
+import com.yfletch.occore.v2.rule.StateDomain;
+import com.yfletch.occore.v2.scene.NpcIndex;
+import com.yfletch.occore.v2.scene.SceneObjectIndex;
+import com.yfletch.occore.v2.snapshot.WorldSnapshot;
 import com.yfletch.occore.v2.util.RunnerUtil;
 import com.yfletch.occore.v2.util.TextColor;
+import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
+import net.runelite.api.coords.WorldArea;
 import net.runelite.api.events.GameTick;
 import net.runelite.api.events.MenuOptionClicked;
 import net.runelite.api.events.PostMenuSort;
+import net.runelite.client.RuneLite;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.events.OverlayMenuClicked;
@@ -52,7 +75,13 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 		.name("Break").noop()
 		.message(TextColor.SPELL + "Taking a break");
 
+	/**
+	 * Rule checks taking at least this long are logged
+	 */
+	private static final long SLOW_RULE_NANOS = 10_000_000L;
+
 	@Inject private ConfigManager configManager;
+	@Inject private EventBus eventBus;
 	@Inject private KeyManager keyManager;
 	@Inject private OverlayManager overlayManager;
 
@@ -62,28 +91,116 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 	@Inject private Client client;
 
 	@Getter
-	private final List<Rule<TContext>> rules = new LinkedList<>();
+	private final List<Rule<TContext>> rules = new ArrayList<>();
+
+	@Getter
+	private final List<RuleGroup<TContext>> groups = new ArrayList<>();
+
+	/**
+	 * Innermost group of each rule that is in a group
+	 */
+	private final Map<Rule<TContext>, RuleGroup<TContext>> ruleGroups = new IdentityHashMap<>();
 
-	private List<Rule<TContext>> groupRules;
+	/**
+	 * Priority (position in the rule list) of each rule
+	 */
+	private final Map<Rule<TContext>, Integer> ruleIndexes = new IdentityHashMap<>();
+
+	/**
+	 * Map regions each region-scoped group applies in
+	 */
+	private final RegionIndex regionIndex = new RegionIndex();
 
+	/**
+	 * States declared in setup, if any
+	 */
 	@Getter
-	private Rule<TContext> currentRule = null;
+	private final StateMachine<TContext> stateMachine = new StateMachine<>();
 
+	/**
+	 * Group currently being built in setup
+	 */
+	private RuleGroup<TContext> buildingGroup;
+
+	/**
+	 * "Once-per-tick" rules waiting to be reset on the next tick
+	 */
+	private final Set<Rule<TContext>> tickResets = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/**
+	 * Blocks of rules built from config values, in the
+	 * order they were declared
+	 */
+	private final List<KeyedSection<TContext>> sections = new ArrayList<>();
+
+	/**
+	 * Section currently being built
+	 */
+	private KeyedSection<TContext> buildingSection;
+
+	// written on the resolution thread and read on the client
+	// thread, so these must be safely published
 	@Getter
-	private DeferredInteraction nextInteraction = null;
+	private volatile Rule<TContext> currentRule = null;
 
 	@Getter
-	private boolean isDelaying = false;
+	private volatile DeferredInteraction nextInteraction = null;
 
 	@Getter
-	private List<String> messages = null;
+	private volatile boolean isDelaying = false;
+
+	/**
+	 * Rule to show messages for, if it has no interaction. Messages
+	 * are only built when asked for.
+	 */
+	private volatile Rule<TContext> messageRule = null;
+
+	private volatile CachedMessages<TContext> cachedMessages = null;
 
 	private int actionsThisTick = 0;
 
+	@Getter
+	private final StateTracker stateTracker = new StateTracker();
+
+	/**
+	 * Results of rules that declare their state domains, along with
+	 * the domain stamp they were checked at
+	 */
+	private final Map<Rule<TContext>, RuleResult> ruleResults = new ConcurrentHashMap<>();
+
+	@Getter
+	private final RuleProfiler profiler = new RuleProfiler();
+
+	/**
+	 * Varbits to capture in each world snapshot
+	 */
+	private int[] trackedVarbits = new int[0];
+
+	/**
+	 * Replaces capturing snapshots from the client when set.
+	 * Package-private so harnesses can replay recorded state.
+	 */
+	Supplier<WorldSnapshot> snapshotSource;
+
+	private SessionRecorder recorder;
+
 	protected StatisticTracker statistics;
+
+	/**
+	 * Saved runner state, created on start up. Plugins can register
+	 * their own state (e.g. optimistic counts) to be saved with it.
+	 */
+	@Getter
+	private Checkpoints checkpoints;
+
+	/**
+	 * Whether to try restoring a checkpoint on the next tick
+	 */
+	private boolean restorePending = false;
 	private InteractionOverlay interactionOverlay;
 	private CoreStatisticsOverlay statisticsOverlay;
 	private CoreDebugOverlay debugOverlay;
+	private RuleProfilerOverlay profilerOverlay;
 	@Inject private WorldDebugOverlay worldDebugOverlay;
 	@Inject private BankItemDebugOverlay bankItemDebugOverlay;
 	@Inject private InventoryItemDebugOverlay inventoryItemDebugOverlay;
@@ -94,6 +211,17 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 	@Setter
 	private CoreConfig config;
 
+	/**
+	 * Snapshots rebuilt when the config group changes
+	 */
+	private final List<ConfigSnapshot<?>> configSnapshots = new ArrayList<>();
+
+	/**
+	 * Core config values read on every tick and click
+	 */
+	@Getter
+	private final ConfigSnapshot<CoreSettings> settings = configSnapshot(() -> CoreSettings.of(config));
+
 	@Setter
 	private String configGroup;
 
@@ -107,7 +235,8 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 
 	/**
 	 * Maximum amount of actions to execute in a single
-	 * tick.
+	 * tick. Batches are planned as a whole, against the
+	 * state each action is predicted to produce.
 	 */
 	@Setter
 	@Accessors(fluent = true)
@@ -117,7 +246,64 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 	@Accessors(fluent = true)
 	private boolean refreshOnConfigChange = false;
 
-	private static final Executor RESOLUTION_EXECUTOR = Executors.newSingleThreadExecutor();
+	/**
+	 * Check the current rule first, and if it still passes, only
+	 * check the rules above it. Rules below the current rule are
+	 * never checked while it holds.
+	 */
+	@Setter
+	@Accessors(fluent = true)
+	private boolean stickyResolution = false;
+
+	/**
+	 * Coalesces resolution requests into passes on the shared
+	 * resolution thread
+	 */
+	@Getter
+	private final ResolutionScheduler scheduler = new ResolutionScheduler(this::resolutionPass);
+
+	/**
+	 * Held while resolving, while rules are added or rebuilt, and while
+	 * the client thread plans, executes or clicks the current rule, so
+	 * rules are never read half-spliced or switched from two threads
+	 */
+	private final Object rulesLock = new Object();
+
+	/**
+	 * Whether the next pass should auto-click afterwards
+	 */
+	private final AtomicBoolean autoClickPending = new AtomicBoolean();
+
+	/**
+	 * Time budget for each resolution pass
+	 */
+	@Getter
+	private final ResolutionBudget budget = new ResolutionBudget();
+
+	/**
+	 * Predicted state after the last executed interaction, waiting
+	 * to be resolved against in the next pass
+	 */
+	private final AtomicReference<WorldSnapshot> pendingPrediction = new AtomicReference<>();
+
+	/**
+	 * Latest prediction made this tick (client thread only), which
+	 * further interactions in the same tick build on
+	 */
+	private WorldSnapshot lastPrediction;
+
+	private volatile Speculation speculation;
+
+	/**
+	 * Rule resolved against a prediction that came true, for the next
+	 * resolution pass to switch to. Rules are only ever switched while
+	 * holding rulesLock - by resolution passes, or by the planner
+	 * executing a batch.
+	 */
+	private final AtomicReference<Rule<TContext>> speculatedRule = new AtomicReference<>();
+
+	private final AtomicLong speculationHits = new AtomicLong();
+	private final AtomicLong speculationMisses = new AtomicLong();
 
 	private final HotkeyListener hotkeyListener = new HotkeyListener(() -> config.quickToggleKeybind())
 	{
@@ -130,7 +316,7 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 
 	public boolean enabled()
 	{
-		return config.enabled();
+		return settings.get().isEnabled();
 	}
 
 	public int getRuleRepeatsLeft()
@@ -148,14 +334,145 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 	 * Clear all current rules and run setup again
 	 */
 	public void refresh()
+	{
+		synchronized (rulesLock)
+		{
+			refreshRules();
+		}
+	}
+
+	private void refreshRules()
 	{
 		rules.clear();
+		groups.clear();
+		ruleGroups.clear();
+		ruleIndexes.clear();
+		regionIndex.clear();
+		stateMachine.clear();
+		sections.clear();
+		tickResets.clear();
+		ruleResults.clear();
+		profiler.reset();
+		budget.reset();
+		pendingPrediction.set(null);
+		lastPrediction = null;
+		speculation = null;
+		speculatedRule.set(null);
+		cachedMessages = null;
 		setup();
 	}
 
+	/**
+	 * Rebuild only the rules that depend on a config key, keeping
+	 * the progress of every other rule. Runs a full refresh if
+	 * setup doesn't declare which keys its rules depend on.
+	 */
+	public void refresh(String configKey)
+	{
+		synchronized (rulesLock)
+		{
+			if (sections.isEmpty())
+			{
+				refreshRules();
+				return;
+			}
+
+			for (var i = 0; i < sections.size(); i++)
+			{
+				if (sections.get(i).keys.contains(configKey))
+				{
+					rebuild(i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replace a section's rules and groups with freshly built ones,
+	 * moving everything after it to fit
+	 */
+	private void rebuild(int sectionIndex)
+	{
+		final var section = sections.get(sectionIndex);
+
+		final var removed = new ArrayList<>(rules.subList(section.start, section.end));
+		final var ruleTail = new ArrayList<>(rules.subList(section.end, rules.size()));
+		rules.subList(section.start, rules.size()).clear();
+
+		final var groupEnd = section.firstGroup + section.groupCount;
+		final var groupTail = new ArrayList<>(groups.subList(groupEnd, groups.size()));
+		groups.subList(section.firstGroup, groups.size()).clear();
+
+		for (final var rule : removed)
+		{
+			forget(rule);
+		}
+
+		buildingGroup = section.parent;
+		buildingSection = section;
+		section.factory.run();
+		buildingSection = null;
+		buildingGroup = null;
+
+		final var delta = rules.size() - section.end;
+		final var groupDelta = groups.size() - groupEnd;
+		section.end = rules.size();
+		section.groupCount += groupDelta;
+
+		rules.addAll(ruleTail);
+		groups.addAll(groupTail);
+
+		for (final var group : groupTail)
+		{
+			group.shift(delta);
+		}
+
+		for (var group = section.parent; group != null; group = group.getParent())
+		{
+			group.setEnd(group.getEnd() + delta);
+		}
+
+		for (var i = sectionIndex + 1; i < sections.size(); i++)
+		{
+			final var next = sections.get(i);
+			next.start += delta;
+			next.end += delta;
+			next.firstGroup += groupDelta;
+		}
+
+		ruleIndexes.clear();
+		for (var i = 0; i < rules.size(); i++)
+		{
+			ruleIndexes.put(rules.get(i), i);
+		}
+
+		// predictions may have been made with the old rules
+		pendingPrediction.set(null);
+		lastPrediction = null;
+		speculation = null;
+		speculatedRule.set(null);
+		cachedMessages = null;
+	}
+
+	/**
+	 * Drop all state held for a rule that was removed
+	 */
+	private void forget(Rule<TContext> rule)
+	{
+		ruleGroups.remove(rule);
+		ruleResults.remove(rule);
+
+		if (currentRule == rule)
+		{
+			currentRule = null;
+			nextInteraction = null;
+			messageRule = null;
+		}
+	}
+
 	public boolean areBreaksEnabled()
 	{
-		return config.enableBreaks();
+		return settings.get().isEnableBreaks();
 	}
 
 	public boolean isInBreak()
@@ -163,188 +480,797 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 		return breakHandler.isInBreak();
 	}
 
-	public String getTimeToNextBreak()
+	public String getTimeToNextBreak()
+	{
+		return breakHandler.getTimeToNextBreak();
+	}
+
+	public String getTimeRemainingInBreak()
+	{
+		return breakHandler.getTimeRemainingInBreak();
+	}
+
+	/**
+	 * Setup this plugin by adding rules here. As this is executed on
+	 * the client thread, it is possible to query items/objects etc.
+	 */
+	public abstract void setup();
+
+	/**
+	 * Include these varbits in the world snapshot, so they can be
+	 * read by rules with getSnapshot().getVarbit(id)
+	 */
+	protected final void trackVarbits(int... varbits)
+	{
+		trackedVarbits = varbits;
+	}
+
+	/**
+	 * Capture the game state for rules to read. Must be
+	 * called on the client thread.
+	 */
+	private void captureSnapshot()
+	{
+		final var snapshot = snapshotSource != null
+			? snapshotSource.get()
+			: WorldSnapshot.capture(client, trackedVarbits);
+		context.setSnapshot(snapshot);
+
+		if (recorder != null)
+		{
+			recorder.recordSnapshot(snapshot);
+		}
+	}
+
+	private void startRecording()
+	{
+		if (recorder != null)
+		{
+			return;
+		}
+
+		final var name = getName().replaceAll("[^A-Za-z0-9]+", "-")
+			+ "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+			+ ".ocrec";
+		final var file = RuneLite.RUNELITE_DIR.toPath().resolve("occore").resolve("recordings").resolve(name);
+
+		// recordings are a single memory-mapped buffer
+		final var capacity = (long) config.recordingSize() * 1024 * 1024;
+		if (capacity <= 0 || capacity > Integer.MAX_VALUE)
+		{
+			log.warn("Not recording session - invalid recording size of {}MB", config.recordingSize());
+			return;
+		}
+
+		try
+		{
+			recorder = SessionRecorder.open(file, (int) capacity);
+			eventBus.register(recorder);
+			log.info("Recording session to {}", file);
+		}
+		catch (IOException e)
+		{
+			log.warn("Failed to start session recording", e);
+		}
+	}
+
+	private void stopRecording()
+	{
+		if (recorder == null)
+		{
+			return;
+		}
+
+		eventBus.unregister(recorder);
+		try
+		{
+			recorder.close();
+		}
+		catch (IOException e)
+		{
+			log.warn("Failed to close session recording", e);
+		}
+		recorder = null;
+	}
+
+	protected final void add(Rule<TContext> rule)
+	{
+		ruleIndexes.put(rule, rules.size());
+		rules.add(rule);
+		if (buildingGroup != null)
+		{
+			ruleGroups.put(rule, buildingGroup);
+		}
+	}
+
+	/**
+	 * Create, add and return a new rule instance that can be customised similar to a builder
+	 */
+	protected final DynamicRule<TContext> action()
+	{
+		final var rule = new DynamicRule<TContext>();
+		add(rule);
+		return rule;
+	}
+
+	/**
+	 * Create, add and return a new requirement rule instance that can be customised similar to a builder
+	 */
+	protected final RequirementRule<TContext> requirements()
+	{
+		final var rule = new RequirementRule<TContext>();
+		add(rule);
+		return rule.name("Requirements");
+	}
+
+	/**
+	 * Add all rules created in the factory to a group, which only applies
+	 * when the predicate passes. The predicate is checked once per pass,
+	 * and if it fails, none of the group's rules are checked.
+	 * <p>
+	 * Groups can be nested.
+	 */
+	protected final void group(Predicate<TContext> when, Runnable factory)
+	{
+		group("Group " + (groups.size() + 1), when, factory);
+	}
+
+	/**
+	 * Add all rules created in the factory to a named group, which only
+	 * applies when the predicate passes. The predicate is checked once per
+	 * pass, and if it fails, none of the group's rules are checked.
+	 * <p>
+	 * Groups can be nested.
+	 */
+	protected final void group(String name, Predicate<TContext> when, Runnable factory)
+	{
+		final var group = new RuleGroup<>(name, when, buildingGroup, rules.size());
+		groups.add(group);
+
+		buildingGroup = group;
+		factory.run();
+		group.setEnd(rules.size());
+		buildingGroup = group.getParent();
+	}
+
+	/**
+	 * Add all rules created in the factory to a named group, which only
+	 * applies while the player is in one of the map regions. Checking
+	 * the group is a single lookup, and while it doesn't apply none of
+	 * its rules are checked.
+	 * <p>
+	 * Can be nested with other groups.
+	 */
+	protected final void region(String name, int[] regionIds, Runnable factory)
+	{
+		final var id = regionIndex.register(regionIds);
+		group(
+			name,
+			c -> regionIndex.isActive(id, c.getSnapshot().getPlayerLocation()),
+			factory
+		);
+	}
+
+	/**
+	 * Add all rules created in the factory to a named group, which only
+	 * applies while the player is in the area. The area is only checked
+	 * while the player is in a map region it overlaps.
+	 * <p>
+	 * Can be nested with other groups.
+	 */
+	protected final void area(String name, WorldArea area, Runnable factory)
+	{
+		final var id = regionIndex.register(area);
+		group(
+			name,
+			c -> {
+				final var location = c.getSnapshot().getPlayerLocation();
+				return regionIndex.isActive(id, location) && area.contains(location);
+			},
+			factory
+		);
+	}
+
+	/**
+	 * Create a snapshot of config values, rebuilt whenever this
+	 * plugin's config changes. Build it from pre-parsed values
+	 * (arrays, enums, matchers) so rules never touch the config
+	 * proxy or parse anything while being checked.
+	 */
+	protected final <T> ConfigSnapshot<T> configSnapshot(Supplier<T> factory)
+	{
+		final var snapshot = new ConfigSnapshot<>(factory);
+		configSnapshots.add(snapshot);
+		return snapshot;
+	}
+
+	/**
+	 * Declare that the rules created in the factory are built from the
+	 * value of a config key. When the key changes, only these rules are
+	 * rebuilt, instead of running the whole setup again.
+	 * <p>
+	 * Once a setup declares any of these, rules outside of them are
+	 * kept as-is on config changes, so they must read config values
+	 * when checked (e.g. from a config snapshot), not when built.
+	 */
+	protected final void dependsOn(String configKey, Runnable factory)
+	{
+		dependsOn(new String[]{configKey}, factory);
+	}
+
+	/**
+	 * Declare that the rules created in the factory are built from the
+	 * values of these config keys. When any of them change, only these
+	 * rules are rebuilt, instead of running the whole setup again.
+	 * <p>
+	 * Once a setup declares any of these, rules outside of them are
+	 * kept as-is on config changes, so they must read config values
+	 * when checked (e.g. from a config snapshot), not when built.
+	 */
+	protected final void dependsOn(String[] configKeys, Runnable factory)
+	{
+		if (buildingSection != null)
+		{
+			throw new IllegalArgumentException("Config sections can't be nested");
+		}
+
+		final var section = new KeyedSection<>(
+			Set.of(configKeys),
+			factory,
+			buildingGroup,
+			rules.size(),
+			groups.size()
+		);
+		sections.add(section);
+
+		buildingSection = section;
+		factory.run();
+		buildingSection = null;
+
+		section.end = rules.size();
+		section.groupCount = groups.size() - section.firstGroup;
+	}
+
+	/**
+	 * Add all rules created in the factory to a state. Only the current
+	 * state's rules are checked, along with any rules outside of states,
+	 * and only its own transitions are checked to move to another state.
+	 * <p>
+	 * The first state declared is the initial state.
+	 */
+	protected final RuleState<TContext> state(String name, Runnable factory)
+	{
+		if (buildingSection != null)
+		{
+			throw new IllegalArgumentException("States can't be declared in a config section");
+		}
+
+		final var state = new RuleState<TContext>(name);
+		stateMachine.add(state);
+		group(name, c -> stateMachine.isCurrent(state), factory);
+		return state;
+	}
+
+	private boolean groupPasses(Rule<TContext> rule)
+	{
+		final var group = ruleGroups.get(rule);
+		return group == null || group.passes(context);
+	}
+
+	private void updateDelay()
+	{
+		context.tickDelays();
+
+		if (context.getMinDelayTimer() > 0)
+		{
+			return;
+		}
+
+		var delay = 0;
+		if (context.getDelayTimer() > 0)
+		{
+			// [0, 2)
+			// the lower the interaction delay is, the more likely
+			// it will execute. 4t => 1/4, 3t => 1/3, etc
+			delay = Rand.nextInt(0, context.getDelayTimer() + 1);
+		}
+
+		if (delay == 0)
+		{
+			isDelaying = false;
+
+			// just for debugging
+			context.setDelayTimer(0);
+		}
+	}
+
+	private boolean canExecute()
+	{
+		if (!enabled() || currentRule == null || !currentRule.canExecute())
+		{
+			return false;
+		}
+
+		return !isDelaying;
+	}
+
+	private void executeWithDeviousAPI()
+	{
+		if (canExecute() && settings.get().getPluginApi() == PluginAPI.DEVIOUS && actionsThisTick < actionsPerTick)
+		{
+			// planning reads the rules and switches between them, so
+			// it can't overlap a resolution pass or a rebuild
+			synchronized (rulesLock)
+			{
+				if (!canExecute())
+				{
+					return;
+				}
+
+				final var plan = planTick();
+				if (plan.isEmpty())
+				{
+					return;
+				}
+
+				// run the whole plan before anything is resolved again
+				for (final var step : plan)
+				{
+					execute(step);
+				}
+			}
+
+			pendingPrediction.set(lastPrediction);
+			scheduler.request();
+
+			// the plan stops at the first interaction with an unknown
+			// outcome - in case there's something else we should do
+			// straight away, process and execute again
+			if (lastPrediction == null)
+			{
+				executeWithDeviousAPI();
+			}
+		}
+	}
+
+	/**
+	 * Plan up to actionsPerTick interactions for this tick. The first
+	 * is the current rule's, and each one after it comes from resolving
+	 * the rules against the state predicted after the steps before it.
+	 * Planning stops at the first interaction with an unknown outcome.
+	 * Every step is evaluated in a pass of its own, apart from the
+	 * resolution thread's.
+	 */
+	private List<PlannedAction<TContext>> planTick()
+	{
+		final var plan = new ArrayList<PlannedAction<TContext>>();
+
+		// the last interaction was built during resolution, which
+		// may have been before the latest state changes
+		final var interaction = context.isolate(() -> updateInteraction(currentRule));
+		if (interaction == null || currentRule.isNoop())
+		{
+			return plan;
+		}
+
+		final var base = lastPrediction != null ? lastPrediction : context.getSnapshot();
+		var step = new PlannedAction<>(currentRule, interaction, interaction.predict(base));
+		plan.add(step);
+
+		while (step.predicted != null && actionsThisTick + plan.size() < actionsPerTick)
+		{
+			step = context.speculate(step.predicted, () -> planNext(plan));
+			if (step == null)
+			{
+				break;
+			}
+
+			plan.add(step);
+		}
+
+		return plan;
+	}
+
+	/**
+	 * Plan the next step against the predicted state, or null if the
+	 * rule that would pass can't be part of this tick's batch
+	 */
+	private PlannedAction<TContext> planNext(List<PlannedAction<TContext>> plan)
+	{
+		final var rule = findPassingRule(rules.size());
+		if (rule == null || rule.isNoop()
+			|| rule.getMaxDelay(context) > 0 || rule.getMinDelay(context) > 0)
+		{
+			return null;
+		}
+
+		// rules other than the current one are reset when
+		// switched to, so only get one go per batch
+		final var uses = plan.stream().filter(step -> step.rule == rule).count();
+		final var allowed = rule == plan.get(0).rule ? rule.repeatsLeft() : 1;
+		if (uses >= allowed)
+		{
+			return null;
+		}
+
+		final var interaction = rule.run(context);
+		if (interaction == null)
+		{
+			return null;
+		}
+
+		return new PlannedAction<>(rule, interaction, interaction.predict(context.getSnapshot()));
+	}
+
+	private void execute(PlannedAction<TContext> step)
+	{
+		if (step.rule != currentRule)
+		{
+			resetOnSwitch(step.rule);
+			currentRule = step.rule;
+			nextInteraction = step.interaction;
+			messageRule = null;
+			step.interaction.onActive();
+		}
+
+		step.interaction.execute();
+		lastPrediction = step.predicted;
+		actionsThisTick++;
+		step.rule.callback(context);
+		useRepeat(step.rule);
+
+		if (!step.rule.canExecute())
+		{
+			step.rule.completeCallback(context);
+		}
+	}
+
+	@Nullable
+	private DeferredInteraction updateInteraction(Rule<TContext> rule)
+	{
+		final var start = profiler.start();
+		nextInteraction = rule.run(context);
+		profiler.record(rule, RuleProfiler.Phase.THEN, start);
+
+		if (nextInteraction == null || rule.isNoop())
+		{
+			// fallback to rule message
+			messageRule = rule;
+		}
+		else
+		{
+			messageRule = null;
+			nextInteraction.onActive();
+		}
+
+		return nextInteraction;
+	}
+
+	/**
+	 * Messages to display for the current rule, if it has no
+	 * interaction. Built on demand, and cached until the state
+	 * the rule reads has changed (or the next resolution pass,
+	 * if it doesn't declare what it reads).
+	 */
+	public List<String> getMessages()
+	{
+		final var rule = messageRule;
+		if (rule == null)
+		{
+			return null;
+		}
+
+		final var mask = StateDomain.mask(rule.reads());
+		final var key = mask == StateDomain.ALL
+			? context.getResolutionPass()
+			: context.getStamp(mask);
+
+		final var cached = cachedMessages;
+		if (cached != null && cached.rule == rule && cached.key == key)
+		{
+			return cached.messages;
+		}
+
+		final var start = profiler.start();
+		var messages = rule.messages(context);
+		profiler.record(rule, RuleProfiler.Phase.MESSAGES, start);
+		if (messages == null)
+		{
+			final var ruleName = rule.name() != null
+				? "\"" + rule.name() + "\""
+				: "unknown rule";
+
+			messages = List.of(
+				TextColor.WHITE + "Nothing to do (no interaction)",
+				TextColor.GRAY + "For " + ruleName
+			);
+		}
+
+		cachedMessages = new CachedMessages<>(rule, key, messages);
+		return messages;
+	}
+
+	private boolean passes(Rule<TContext> rule)
+	{
+		final var mask = StateDomain.mask(rule.reads());
+		if (mask == StateDomain.ALL || context.isSpeculating())
+		{
+			return check(rule);
+		}
+
+		// nothing this rule reads has changed since
+		// it was last checked - re-use the result
+		final var stamp = context.getStamp(mask);
+		final var previous = ruleResults.get(rule);
+		if (previous != null && previous.stamp == stamp)
+		{
+			profiler.recordCached(rule);
+			return previous.passes;
+		}
+
+		final var pass = check(rule);
+		ruleResults.put(rule, new RuleResult(stamp, pass));
+		return pass;
+	}
+
+	private boolean check(Rule<TContext> rule)
+	{
+		final var start = System.nanoTime();
+		final var pass = rule.passes(context) && !rule.continues(context);
+		final var elapsed = System.nanoTime() - start;
+
+		profiler.recordElapsed(rule, RuleProfiler.Phase.PREDICATE, elapsed);
+		profiler.recordResult(rule, pass);
+
+		if (elapsed >= SLOW_RULE_NANOS)
+		{
+			log.info("Slow rule - \"{}\" took {}ms!", rule.name(), elapsed / 1_000_000);
+		}
+
+		return pass;
+	}
+
+	/**
+	 * Reset a rule. This also clears its stored result, since
+	 * rules can pass or fail based on their repeats left.
+	 */
+	private void resetOnSwitch(Rule<TContext> rule)
+	{
+		// reset previous rule
+		// if the previous rule should only be reset on tick,
+		// then skip it
+		if (currentRule != null
+			&& !(currentRule instanceof DynamicRule && ((DynamicRule<TContext>) currentRule).resetsOnTick()))
+		{
+			reset(currentRule);
+		}
+
+		// reset rule status
+		reset(rule);
+	}
+
+	private void reset(Rule<TContext> rule)
+	{
+		rule.reset(context);
+		ruleResults.remove(rule);
+	}
+
+	private void useRepeat(Rule<TContext> rule)
+	{
+		rule.useRepeat();
+		ruleResults.remove(rule);
+
+		// "once-per-tick" rules get their repeats back on the
+		// next tick, which is all a tick reset changes
+		if (rule instanceof DynamicRule && ((DynamicRule<TContext>) rule).resetsOnTick()
+			&& tickResets.add(rule))
+		{
+			context.getTimers().afterTicks(1, () -> {
+				tickResets.remove(rule);
+				reset(rule);
+			});
+		}
+	}
+
+	private void enable(Rule<TContext> rule)
+	{
+		resetOnSwitch(rule);
+
+		// update interaction display
+		updateInteraction(rule);
+
+		final var maxDelay = rule.getMaxDelay(context);
+		final var minDelay = rule.getMinDelay(context);
+
+		// use new max delay
+		context.setDelayTimer(maxDelay);
+		context.setMinDelayTimer(minDelay);
+		// reset delay status
+		isDelaying = maxDelay > 0 || minDelay > 0;
+
+		currentRule = rule;
+	}
+
+	/**
+	 * A single pass on the resolution thread. Requests made while
+	 * it runs are served by the next pass.
+	 */
+	private void resolutionPass()
+	{
+		synchronized (rulesLock)
+		{
+			resolveRules();
+
+			final var prediction = pendingPrediction.getAndSet(null);
+			if (prediction != null)
+			{
+				speculate(prediction);
+			}
+		}
+
+		if (
+			autoClickPending.getAndSet(false)
+				&& settings.get().isEnabled()
+				&& settings.get().getPluginApi() == PluginAPI.ONE_CLICK_AUTO
+				&& canExecute()
+		)
+		{
+			if (!autoClick.ready())
+			{
+				configManager.setConfiguration(
+					configGroup,
+					"enabled",
+					false
+				);
+			}
+			else
+			{
+				autoClick.run();
+			}
+		}
+	}
+
+	/**
+	 * Find the first (highest priority) passing rule
+	 * before the given index
+	 */
+	@Nullable
+	private Rule<TContext> findPassingRule(int to)
 	{
-		return breakHandler.getTimeToNextBreak();
-	}
+		for (var i = 0; i < to; i++)
+		{
+			final var rule = rules.get(i);
+			final var group = ruleGroups.get(rule);
+			if (group != null && !group.passes(context))
+			{
+				// skip the whole failing group at once
+				i = group.getOutermostFailure(context).getEnd() - 1;
+				continue;
+			}
 
-	public String getTimeRemainingInBreak()
-	{
-		return breakHandler.getTimeRemainingInBreak();
-	}
+			if (!context.isSpeculating() && budget.shouldDefer(rule))
+			{
+				// short on time - rules below this one can't win
+				// until it has been checked, so leave the rest
+				// to the next pass
+				return null;
+			}
 
-	/**
-	 * Setup this plugin by adding rules here. As this is executed on
-	 * the client thread, it is possible to query items/objects etc.
-	 */
-	public abstract void setup();
+			if (passes(rule))
+			{
+				return rule;
+			}
+		}
 
-	protected final void add(Rule<TContext> rule)
-	{
-		Objects.requireNonNullElse(groupRules, rules).add(rule);
+		return null;
 	}
 
 	/**
-	 * Create, add and return a new rule instance that can be customised similar to a builder
+	 * Find the rule that would pass in a predicted state, and keep
+	 * it until the real state arrives
 	 */
-	protected final DynamicRule<TContext> action()
+	private void speculate(WorldSnapshot predicted)
 	{
-		final var rule = new DynamicRule<TContext>();
-		add(rule);
-		return rule;
+		final var rule = context.speculate(predicted, () -> findPassingRule(rules.size()));
+
+		speculation = new Speculation(predicted, rule);
 	}
 
 	/**
-	 * Create, add and return a new requirement rule instance that can be customised similar to a builder
+	 * Predict the outcome of an executed interaction, so the
+	 * next rule can be resolved ahead of time
 	 */
-	protected final RequirementRule<TContext> requirements()
-	{
-		final var rule = new RequirementRule<TContext>();
-		add(rule);
-		return rule.name("Requirements");
-	}
-
-	protected final void group(Predicate<TContext> when, Runnable factory)
+	private void predict(DeferredInteraction interaction)
 	{
-		groupRules = new ArrayList<>();
-		factory.run();
-		groupRules.forEach(
-			rule -> rule.when(rule.when() != null ? rule.when().and(when) : when)
-		);
-		rules.addAll(groupRules);
-		groupRules = null;
+		final var base = lastPrediction != null ? lastPrediction : context.getSnapshot();
+		lastPrediction = interaction.predict(base);
+		pendingPrediction.set(lastPrediction);
 	}
 
-	private void updateDelay()
+	/**
+	 * If the state predicted after the last interaction came true,
+	 * hand the rule that was resolved against it to the next pass.
+	 * The rules above it already failed in the predicted state, so
+	 * that pass only checks the rule itself again.
+	 */
+	private void applySpeculation()
 	{
-		context.tickDelays();
+		final var expected = lastPrediction;
+		final var result = speculation;
+		lastPrediction = null;
+		speculation = null;
+		pendingPrediction.set(null);
 
-		if (context.getMinDelayTimer() > 0)
+		if (expected == null)
 		{
 			return;
 		}
 
-		var delay = 0;
-		if (context.getDelayTimer() > 0)
+		// a speculation for an earlier interaction in the
+		// same tick doesn't count
+		if (result == null || result.predicted != expected || !expected.matches(context.getSnapshot()))
 		{
-			// [0, 2)
-			// the lower the interaction delay is, the more likely
-			// it will execute. 4t => 1/4, 3t => 1/3, etc
-			delay = Rand.nextInt(0, context.getDelayTimer() + 1);
+			speculationMisses.incrementAndGet();
+			return;
 		}
 
-		if (delay == 0)
+		speculationHits.incrementAndGet();
+		if (result.rule != null)
 		{
-			isDelaying = false;
-
-			// just for debugging
-			context.setDelayTimer(0);
+			speculatedRule.set(result.rule);
+			scheduler.request();
 		}
 	}
 
-	private boolean canExecute()
+	/**
+	 * Amount of predictions that came true
+	 */
+	public long getSpeculationHits()
 	{
-		if (!enabled() || currentRule == null || !currentRule.canExecute())
-		{
-			return false;
-		}
-
-		return !isDelaying;
+		return speculationHits.get();
 	}
 
-	private void executeWithDeviousAPI()
+	/**
+	 * Amount of predictions that didn't come true, or weren't
+	 * resolved in time
+	 */
+	public long getSpeculationMisses()
 	{
-		if (canExecute() && config.pluginApi() == PluginAPI.DEVIOUS)
-		{
-			final var interaction = updateInteraction(currentRule);
-			if (interaction != null && actionsThisTick < actionsPerTick)
-			{
-				interaction.execute();
-				actionsThisTick++;
-				currentRule.callback(context);
-				currentRule.useRepeat();
-
-				if (!currentRule.canExecute())
-				{
-					currentRule.completeCallback(context);
-				}
-
-				// in case there's something else we should do straight
-				// away, process and execute again
-				RESOLUTION_EXECUTOR.execute(this::resolveRules);
-				executeWithDeviousAPI();
-			}
-		}
+		return speculationMisses.get();
 	}
 
-	@Nullable
-	private DeferredInteraction updateInteraction(Rule<TContext> rule)
+	/**
+	 * Restore the last checkpoint on the first tick after starting,
+	 * and save one at each interval after that
+	 */
+	private void tickCheckpoints()
 	{
-		nextInteraction = rule.run(context);
-		if (nextInteraction == null || rule.isNoop())
-		{
-			// fallback to rule message
-			messages = rule.messages(context);
-			if (messages == null)
-			{
-				final var ruleName = rule.name() != null
-					? "\"" + rule.name() + "\""
-					: "unknown rule";
-
-				messages = List.of(
-					TextColor.WHITE + "Nothing to do (no interaction)",
-					TextColor.GRAY + "For " + ruleName
-				);
-			}
-		}
-		else
+		// not started (e.g. driven by a harness)
+		if (checkpoints == null || !settings.get().isResumeFromCheckpoint())
 		{
-			messages = null;
-			nextInteraction.onActive();
+			return;
 		}
 
-		return nextInteraction;
-	}
-
-	private boolean passes(Rule<TContext> rule)
-	{
-		return rule.passes(context) && !rule.continues(context);
-	}
-
-	private void enable(Rule<TContext> rule)
-	{
-		// reset previous rule
-		// if the previous rule should only be reset on tick,
-		// then skip it
-		if (currentRule != null
-			&& !(currentRule instanceof DynamicRule && ((DynamicRule<TContext>) currentRule).resetsOnTick()))
+		if (restorePending)
 		{
-			currentRule.reset(context);
+			restorePending = false;
+			if (checkpoints.restore(client))
+			{
+				log.info("Resumed from checkpoint {}", checkpoints.file());
+				stateTracker.markAll();
+			}
+			return;
 		}
 
-		// reset rule status
-		rule.reset(context);
-
-		// update interaction display
-		updateInteraction(rule);
-
-		final var maxDelay = rule.getMaxDelay(context);
-		final var minDelay = rule.getMinDelay(context);
-
-		// use new max delay
-		context.setDelayTimer(maxDelay);
-		context.setMinDelayTimer(minDelay);
-		// reset delay status
-		isDelaying = maxDelay > 0 || minDelay > 0;
-
-		currentRule = rule;
+		checkpoints.tick(client);
 	}
 
 	/**
-	 * Determine the next rule to move to
+	 * Determine the next rule to move to. Package-private so the
+	 * engine can be driven without a client (e.g. for benchmarks).
 	 */
 	@SuppressWarnings("unchecked")
-	private void resolveRules()
+	void resolveRules()
 	{
 		if (breakHandler.isInBreak())
 		{
@@ -355,50 +1281,82 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 			return;
 		}
 
+		context.nextResolutionPass();
+		profiler.pass();
+		budget.begin();
+
+		// rules of the previous state fail their group
+		// from here on, so the current rule is replaced
+		stateMachine.step(context);
+
 		final var startResolution = Instant.now();
-		// find new rule to apply
-		for (final var rule : rules)
-		{
-			final var startRuleCheck = Instant.now();
-			final var pass = passes(rule);
-			final var ruleTime = Duration.between(startRuleCheck, Instant.now()).toMillis();
+		final var currentIndex = currentRule != null
+			? ruleIndexes.getOrDefault(currentRule, -1)
+			: -1;
 
-			if (ruleTime >= 10)
+		final var speculated = speculatedRule.getAndSet(null);
+		if (speculated != null && ruleIndexes.containsKey(speculated)
+			&& groupPasses(speculated) && passes(speculated))
+		{
+			// a prediction came true, and the rules above this
+			// one already failed against it
+			if (speculated != currentRule)
 			{
-				log.info("Slow rule - \"{}\" took {}ms!", rule.name(), ruleTime);
+				enable(speculated);
 			}
-
-			if (pass)
+			else
 			{
-				if (rule == currentRule)
-				{
-					// current rule is still active -
-					// continue to below
-					break;
-				}
-
-				enable(rule);
-				break;
+				updateInteraction(currentRule);
 			}
 		}
+		else if (stickyResolution && currentIndex != -1
+			&& groupPasses(currentRule) && passes(currentRule))
+		{
+			// current rule still holds, so only rules
+			// above it are able to take over
+			final var rule = findPassingRule(currentIndex);
+			if (rule != null)
+			{
+				enable(rule);
+			}
 
-		if (currentRule != null)
+			updateInteraction(currentRule);
+		}
+		else
 		{
-			// clear rule if it no longer passes
-			if (!passes(currentRule))
+			// find new rule to apply
+			final var rule = findPassingRule(rules.size());
+			if (rule != null && rule != currentRule)
 			{
-				currentRule.reset(context);
-				currentRule = null;
-				nextInteraction = null;
-				messages = null;
+				enable(rule);
 			}
 
-			if (currentRule != null)
+			// a pass cut short didn't get to check every rule above
+			// the current one, so it's kept until the next pass has
+			if (currentRule != null && (rule != null || !budget.isCutShort()))
 			{
-				updateInteraction(currentRule);
+				// clear rule if it no longer passes
+				if (!groupPasses(currentRule) || !passes(currentRule))
+				{
+					reset(currentRule);
+					currentRule = null;
+					nextInteraction = null;
+					messageRule = null;
+				}
+
+				if (currentRule != null)
+				{
+					updateInteraction(currentRule);
+				}
 			}
 		}
 
+		if (budget.end())
+		{
+			// the pass was cut short - check the rest in another
+			scheduler.request();
+		}
+
 		final var resolutionTime = Duration.between(startResolution, Instant.now()).toMillis();
 
 		if (resolutionTime >= 40)
@@ -414,6 +1372,7 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 
 		statistics = new StatisticTracker();
 		statisticsOverlay = new CoreStatisticsOverlay(this, statistics);
+		profilerOverlay = new RuleProfilerOverlay(this, profiler);
 
 		WorldDebug.setWorldOverlay(worldDebugOverlay);
 		WorldDebug.setBankItemDebugOverlay(bankItemDebugOverlay);
@@ -449,6 +1408,12 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 			overlayManager.add(equipmentItemDebugOverlay);
 		}
 
+		profiler.setEnabled(config.profileRules());
+		if (config.profileRules())
+		{
+			overlayManager.add(profilerOverlay);
+		}
+
 		if (config.quickToggleKeybind() != null)
 		{
 			keyManager.registerKeyListener(hotkeyListener);
@@ -457,8 +1422,31 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 		autoClick.setClicksPerTick(config.clicksPerTick());
 		breakHandler.setInterval(config.breakInterval());
 		breakHandler.setDuration(config.breakDuration());
+		budget.setBudgetMillis(config.resolutionBudget());
+
+		eventBus.register(stateTracker);
+		stateTracker.markAll();
+		SceneObjectIndex.getShared().attach(eventBus, client);
+		NpcIndex.getShared().attach(eventBus, client);
+
+		if (config.recordSession())
+		{
+			startRecording();
+		}
+
+		checkpoints = new Checkpoints(getName())
+			.register("context", context)
+			.register("statistics", statistics)
+			.register("breaks", breakHandler);
+		restorePending = config.resumeFromCheckpoint();
 
-		Static.getClientThread().invokeLater(this::setup);
+		scheduler.start();
+		Static.getClientThread().invokeLater(() -> {
+			synchronized (rulesLock)
+			{
+				setup();
+			}
+		});
 	}
 
 	@Override
@@ -471,86 +1459,84 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 		overlayManager.remove(bankItemDebugOverlay);
 		overlayManager.remove(inventoryItemDebugOverlay);
 		overlayManager.remove(equipmentItemDebugOverlay);
+		overlayManager.remove(profilerOverlay);
+		profiler.setEnabled(false);
 		keyManager.unregisterKeyListener(hotkeyListener);
+		eventBus.unregister(stateTracker);
+		SceneObjectIndex.getShared().detach(eventBus);
+		NpcIndex.getShared().detach(eventBus);
+		stopRecording();
+		scheduler.stop();
+
+		if (checkpoints != null && config.resumeFromCheckpoint())
+		{
+			checkpoints.save(client);
+		}
 	}
 
 	@Subscribe
 	public void onGameTick(GameTick event)
 	{
+		stateTracker.tick(client);
+		captureSnapshot();
+		if (recorder != null)
+		{
+			recorder.recordGameTick();
+		}
+		applySpeculation();
+		tickCheckpoints();
 		context.tick(true);
 		Entities.clearInteracted();
 		actionsThisTick = 0;
 
-		// reset all "once-per-tick" rules
-		for (final var rule : rules)
-		{
-			if (rule instanceof DynamicRule && ((DynamicRule<TContext>) rule).resetsOnTick())
-			{
-				rule.reset(context);
-			}
-		}
-
 		if (processOnGameTick)
 		{
-			RESOLUTION_EXECUTOR.execute(() -> {
-				this.resolveRules();
-
-				if (
-					config.enabled()
-						&& config.pluginApi() == PluginAPI.ONE_CLICK_AUTO
-						&& canExecute()
-				)
-				{
-					if (!autoClick.ready())
-					{
-						configManager.setConfiguration(
-							configGroup,
-							"enabled",
-							false
-						);
-					}
-					else
-					{
-						autoClick.run();
-					}
-				}
-			});
+			autoClickPending.set(true);
+			scheduler.request();
 		}
 
 		executeWithDeviousAPI();
 		updateDelay();
 
-		if (config.enabled() && !breakHandler.isInBreak())
+		if (enabled() && !breakHandler.isInBreak())
 		{
 			statistics.tick();
 		}
 
-		if (config.enableBreaks())
+		if (areBreaksEnabled())
 		{
 			breakHandler.tick();
 		}
+
+		profiler.tick();
 	}
 
 	@Subscribe
 	public void onMenuOptionClicked(MenuOptionClicked event)
 	{
-		if (config.debugRawMenuEntries())
+		final var settings = this.settings.get();
+		if (settings.isDebugRawMenuEntries())
 		{
 			RunnerUtil.log("raw", event.getMenuEntry());
 		}
 
+		captureSnapshot();
+		if (recorder != null)
+		{
+			recorder.recordMenuClick(event.getMenuEntry());
+		}
 		context.tick(false);
 
-		if (enabled() && config.pluginApi() == PluginAPI.ONE_CLICK_CONSUME && !canExecute())
+		if (settings.isEnabled() && settings.getPluginApi() == PluginAPI.ONE_CLICK_CONSUME && !canExecute())
 		{
 			event.consume();
-			if (config.debugOCMenuEntries())
+			if (settings.isDebugOCMenuEntries())
 			{
 				RunnerUtil.log("OC", "Consumed");
 			}
 		}
 
-		if (canExecute() && config.pluginApi().isOneClick()
+		if (canExecute() && settings.getPluginApi().isOneClick()
 			&& !event.getMenuOption().startsWith("* ")
 			&& nextInteraction != null)
 		{
@@ -571,21 +1557,30 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 
 		if (currentRule != null && event.getMenuOption().startsWith("* "))
 		{
-			if (nextInteraction != null)
+			synchronized (rulesLock)
 			{
-				nextInteraction.prepare();
-			}
+				final var rule = currentRule;
+				final var interaction = nextInteraction;
+				if (interaction != null)
+				{
+					interaction.prepare();
+					predict(interaction);
+				}
 
-			actionsThisTick++;
-			currentRule.callback(context);
-			currentRule.useRepeat();
+				actionsThisTick++;
+				if (rule != null)
+				{
+					rule.callback(context);
+					useRepeat(rule);
 
-			if (!currentRule.canExecute())
-			{
-				currentRule.completeCallback(context);
+					if (!rule.canExecute())
+					{
+						rule.completeCallback(context);
+					}
+				}
 			}
 
-			if (config.debugOCMenuEntries())
+			if (settings.isDebugOCMenuEntries())
 			{
 				RunnerUtil.log("OC", event.getMenuEntry());
 			}
@@ -593,7 +1588,7 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 
 		if (processOnMouseClick)
 		{
-			RESOLUTION_EXECUTOR.execute(this::resolveRules);
+			scheduler.request();
 		}
 
 		executeWithDeviousAPI();
@@ -602,7 +1597,7 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 	@Subscribe
 	public void onPostMenuSort(PostMenuSort event)
 	{
-		if (config.pluginApi().isOneClick() && canExecute())
+		if (settings.get().getPluginApi().isOneClick() && canExecute())
 		{
 			if (nextInteraction != null)
 			{
@@ -619,9 +1614,17 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 	{
 		if (event.getGroup().equals(configGroup))
 		{
+			for (final var snapshot : configSnapshots)
+			{
+				snapshot.rebuild();
+			}
+
+			// rules can read any config value
+			stateTracker.markAll();
+
 			if (refreshOnConfigChange)
 			{
-				Static.getClientThread().invokeLater(this::refresh);
+				Static.getClientThread().invokeLater(() -> refresh(event.getKey()));
 			}
 
 			switch (event.getKey())
@@ -632,6 +1635,9 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 				case "clicksPerTick":
 					autoClick.setClicksPerTick(config.clicksPerTick());
 					break;
+				case "resolutionBudget":
+					budget.setBudgetMillis(config.resolutionBudget());
+					break;
 				case "showActionOverlay":
 					if (event.getNewValue().equals("true"))
 					{
@@ -678,6 +1684,27 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 						overlayManager.remove(equipmentItemDebugOverlay);
 					}
 					break;
+				case "profileRules":
+					profiler.setEnabled(event.getNewValue().equals("true"));
+					if (profiler.isEnabled())
+					{
+						overlayManager.add(profilerOverlay);
+					}
+					else
+					{
+						overlayManager.remove(profilerOverlay);
+					}
+					break;
+				case "recordSession":
+					if (event.getNewValue().equals("true"))
+					{
+						startRecording();
+					}
+					else
+					{
+						stopRecording();
+					}
+					break;
 				case "enableBreaks":
 				case "breakInterval":
 				case "breakDuration":
@@ -696,5 +1723,100 @@ public abstract class RunnerPlugin<TContext extends CoreContext> extends Plugin
 		{
 			statistics.clear();
 		}
+
+		if (event.getOverlay() == profilerOverlay)
+		{
+			if (event.getEntry().getOption().equals(RuleProfilerOverlay.CLEAR_PROFILE))
+			{
+				profiler.clear();
+			}
+			else if (event.getEntry().getOption().equals(RuleProfilerOverlay.EXPORT_PROFILE))
+			{
+				exportProfile();
+			}
+		}
+	}
+
+	private void exportProfile()
+	{
+		final var directory = RuneLite.RUNELITE_DIR.toPath().resolve("occore").resolve("profiles");
+		try
+		{
+			final var file = profiler.export(directory, getName().replaceAll("[^A-Za-z0-9]+", "-"));
+			RunnerUtil.chat("Profiler", "Exported rule profile to " + file);
+		}
+		catch (IOException e)
+		{
+			log.warn("Failed to export rule profile", e);
+			RunnerUtil.chat("Profiler", TextColor.DANGER + "Failed to export rule profile");
+		}
+	}
+
+	@AllArgsConstructor
+	private static final class RuleResult
+	{
+		private final long stamp;
+		private final boolean passes;
+	}
+
+	@AllArgsConstructor
+	private static final class CachedMessages<TContext extends CoreContext>
+	{
+		private final Rule<TContext> rule;
+		private final long key;
+		private final List<String> messages;
+	}
+
+	@AllArgsConstructor
+	private static final class PlannedAction<TContext extends CoreContext>
+	{
+		private final Rule<TContext> rule;
+		private final DeferredInteraction interaction;
+
+		/**
+		 * State after this interaction, or null if unknown
+		 */
+		private final WorldSnapshot predicted;
+	}
+
+	/**
+	 * Contiguous block of rules built from config values
+	 */
+	private static final class KeyedSection<TContext extends CoreContext>
+	{
+		private final Set<String> keys;
+		private final Runnable factory;
+
+		/**
+		 * Group the section was declared in, if any
+		 */
+		private final RuleGroup<TContext> parent;
+
+		private int start;
+		private int end;
+
+		/**
+		 * Position of the section's first group in the
+		 * group list, and how many groups it has
+		 */
+		private int firstGroup;
+		private int groupCount;
+
+		private KeyedSection(Set<String> keys, Runnable factory, RuleGroup<TContext> parent, int start, int firstGroup)
+		{
+			this.keys = keys;
+			this.factory = factory;
+			this.parent = parent;
+			this.start = start;
+			this.end = start;
+			this.firstGroup = firstGroup;
+		}
+	}
+
+	@AllArgsConstructor
+	private final class Speculation
+	{
+		private final WorldSnapshot predicted;
+		private final Rule<TContext> rule;
 	}
 }
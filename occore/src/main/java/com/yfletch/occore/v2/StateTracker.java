@@ -0,0 +1,257 @@
+package com.yfletch.occore.v2;
+
+import com.yfletch.occore.v2.rule.StateDomain;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.InventoryID;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.DecorativeObjectDespawned;
+import net.runelite.api.events.DecorativeObjectSpawned;
+import net.runelite.api.events.GameObjectDespawned;
+import net.runelite.api.events.GameObjectSpawned;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GroundObjectDespawned;
+import net.runelite.api.events.GroundObjectSpawned;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.NpcChanged;
+import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.events.WallObjectDespawned;
+import net.runelite.api.events.WallObjectSpawned;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.api.widgets.WidgetID;
+import net.runelite.client.eventbus.Subscribe;
+
+/**
+ * Keeps a version counter for each state domain, which is bumped
+ * whenever something in that domain changes. The runner uses these
+ * to skip re-checking rules whose inputs haven't changed.
+ * <p>
+ * Registered on the event bus separately from the plugin, so plugins
+ * are free to subscribe to the same events themselves.
+ */
+public class StateTracker
+{
+	private final AtomicIntegerArray versions = new AtomicIntegerArray(StateDomain.values().length);
+
+	private WorldPoint lastLocation;
+
+	/**
+	 * Mark a domain as changed
+	 */
+	public void mark(StateDomain domain)
+	{
+		versions.incrementAndGet(domain.ordinal());
+	}
+
+	/**
+	 * Mark every domain as changed, forcing all rules
+	 * to be re-checked
+	 */
+	public void markAll()
+	{
+		for (var i = 0; i < versions.length(); i++)
+		{
+			versions.incrementAndGet(i);
+		}
+	}
+
+	/**
+	 * Get a combined version for all domains in the mask. As
+	 * versions only ever increase, this changes if and only if
+	 * one of the domains has changed.
+	 */
+	public long stamp(int mask)
+	{
+		var stamp = 0L;
+		for (var i = 0; i < versions.length(); i++)
+		{
+			if ((mask & (1 << i)) != 0)
+			{
+				stamp += versions.get(i);
+			}
+		}
+
+		return stamp;
+	}
+
+	/**
+	 * Copy of every domain's version, to be kept with a
+	 * world snapshot when it's captured
+	 */
+	public int[] capture()
+	{
+		final var captured = new int[versions.length()];
+		for (var i = 0; i < captured.length; i++)
+		{
+			captured[i] = versions.get(i);
+		}
+
+		return captured;
+	}
+
+	/**
+	 * Get a combined version for all domains in the mask, as of a
+	 * capture. Domains held in the world snapshot use their version
+	 * from when it was captured, so a result checked against an old
+	 * snapshot is never stored under a newer version. Other domains
+	 * are read live.
+	 */
+	public long stamp(int mask, int[] captured)
+	{
+		if (captured == null)
+		{
+			return stamp(mask);
+		}
+
+		var stamp = 0L;
+		for (var i = 0; i < versions.length(); i++)
+		{
+			final var bit = 1 << i;
+			if ((mask & bit) != 0)
+			{
+				stamp += (StateDomain.SNAPSHOT & bit) != 0 ? captured[i] : versions.get(i);
+			}
+		}
+
+		return stamp;
+	}
+
+	/**
+	 * Check for changes that don't have their own event.
+	 * Should be called on the client thread every game tick.
+	 */
+	public void tick(Client client)
+	{
+		final var player = client.getLocalPlayer();
+		final var location = player != null ? player.getWorldLocation() : null;
+		if (location != null && !location.equals(lastLocation))
+		{
+			lastLocation = location;
+			mark(StateDomain.LOCATION);
+		}
+	}
+
+	@Subscribe
+	public void onItemContainerChanged(ItemContainerChanged event)
+	{
+		final var id = event.getContainerId();
+		if (id == InventoryID.INVENTORY.getId())
+		{
+			mark(StateDomain.INVENTORY);
+		}
+		else if (id == InventoryID.BANK.getId())
+		{
+			mark(StateDomain.BANK);
+		}
+		else if (id == InventoryID.EQUIPMENT.getId())
+		{
+			mark(StateDomain.EQUIPMENT);
+		}
+	}
+
+	@Subscribe
+	public void onWidgetLoaded(WidgetLoaded event)
+	{
+		mark(StateDomain.WIDGETS);
+		if (event.getGroupId() == WidgetID.BANK_GROUP_ID)
+		{
+			mark(StateDomain.BANK);
+		}
+	}
+
+	@Subscribe
+	public void onWidgetClosed(WidgetClosed event)
+	{
+		mark(StateDomain.WIDGETS);
+		if (event.getGroupId() == WidgetID.BANK_GROUP_ID)
+		{
+			mark(StateDomain.BANK);
+		}
+	}
+
+	@Subscribe
+	public void onNpcSpawned(NpcSpawned event)
+	{
+		mark(StateDomain.NPCS);
+	}
+
+	@Subscribe
+	public void onNpcDespawned(NpcDespawned event)
+	{
+		mark(StateDomain.NPCS);
+	}
+
+	@Subscribe
+	public void onNpcChanged(NpcChanged event)
+	{
+		mark(StateDomain.NPCS);
+	}
+
+	@Subscribe
+	public void onGameObjectSpawned(GameObjectSpawned event)
+	{
+		mark(StateDomain.OBJECTS);
+	}
+
+	@Subscribe
+	public void onGameObjectDespawned(GameObjectDespawned event)
+	{
+		mark(StateDomain.OBJECTS);
+	}
+
+	@Subscribe
+	public void onWallObjectSpawned(WallObjectSpawned event)
+	{
+		mark(StateDomain.OBJECTS);
+	}
+
+	@Subscribe
+	public void onWallObjectDespawned(WallObjectDespawned event)
+	{
+		mark(StateDomain.OBJECTS);
+	}
+
+	@Subscribe
+	public void onDecorativeObjectSpawned(DecorativeObjectSpawned event)
+	{
+		mark(StateDomain.OBJECTS);
+	}
+
+	@Subscribe
+	public void onDecorativeObjectDespawned(DecorativeObjectDespawned event)
+	{
+		mark(StateDomain.OBJECTS);
+	}
+
+	@Subscribe
+	public void onGroundObjectSpawned(GroundObjectSpawned event)
+	{
+		mark(StateDomain.OBJECTS);
+	}
+
+	@Subscribe
+	public void onGroundObjectDespawned(GroundObjectDespawned event)
+	{
+		mark(StateDomain.OBJECTS);
+	}
+
+	@Subscribe
+	public void onVarbitChanged(VarbitChanged event)
+	{
+		mark(StateDomain.VARBITS);
+	}
+
+	@Subscribe
+	public void onGameStateChanged(GameStateChanged event)
+	{
+		// scene reloads (or logging out) can change anything
+		if (event.getGameState() != GameState.LOGGED_IN)
+		{
+			markAll();
+		}
+	}
+}
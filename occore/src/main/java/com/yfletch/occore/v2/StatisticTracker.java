@@ -1,5 +1,6 @@
 package com.yfletch.occore.v2;
 
+import com.yfletch.occore.v2.checkpoint.Checkpointable;
 import com.yfletch.occore.v2.util.RSNumberFormat;
 import com.yfletch.occore.v2.util.Util;
 import java.text.DecimalFormat;
@@ -10,8 +11,9 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import lombok.AllArgsConstructor;
 
-public class StatisticTracker
+public class StatisticTracker implements Checkpointable<StatisticTracker.State>
 {
 	private final DecimalFormat decimal = new DecimalFormat("0.##");
 
@@ -117,4 +119,34 @@ public class StatisticTracker
 	{
 		return ticks * 0.6d / 3600d;
 	}
+
+	@Override
+	public Class<State> getCheckpointType()
+	{
+		return State.class;
+	}
+
+	@Override
+	public State saveCheckpoint()
+	{
+		return new State(ticks, new HashMap<>(values));
+	}
+
+	@Override
+	public void restoreCheckpoint(State state)
+	{
+		ticks = state.ticks;
+		values.clear();
+		if (state.values != null)
+		{
+			values.putAll(state.values);
+		}
+	}
+
+	@AllArgsConstructor
+	public static class State
+	{
+		private final int ticks;
+		private final Map<String, Double> values;
+	}
 }
@@ -0,0 +1,27 @@
+package com.yfletch.occore.v2.checkpoint;
+
+import com.google.gson.JsonElement;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+/**
+ * Checkpoint as written to disk
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+class CheckpointFile
+{
+	int version;
+	long accountHash;
+	long savedAt;
+
+	int x;
+	int y;
+	int plane;
+
+	/**
+	 * State of each registered component, by key
+	 */
+	Map<String, JsonElement> state;
+}
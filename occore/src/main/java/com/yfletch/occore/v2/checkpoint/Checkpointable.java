@@ -0,0 +1,20 @@
+package com.yfletch.occore.v2.checkpoint;
+
+/**
+ * Something with state worth keeping across plugin restarts.
+ * The state object must be serializable with Gson.
+ */
+public interface Checkpointable<T>
+{
+	Class<T> getCheckpointType();
+
+	/**
+	 * Copy of the current state to write to the checkpoint
+	 */
+	T saveCheckpoint();
+
+	/**
+	 * Continue from a previously saved state
+	 */
+	void restoreCheckpoint(T state);
+}
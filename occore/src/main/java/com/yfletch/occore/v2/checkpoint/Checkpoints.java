@@ -0,0 +1,231 @@
+package com.yfletch.occore.v2.checkpoint;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.RuneLite;
+
+/**
+ * Periodically writes the state of registered components to a small
+ * local file, and restores it when a plugin starts again, so the
+ * runner can continue without re-deriving everything.
+ * <p>
+ * A checkpoint is only restored for the same account, if it is recent,
+ * and if the player is still near where it was saved.
+ */
+@Slf4j
+@Accessors(fluent = true)
+public class Checkpoints
+{
+	/**
+	 * Increment when the file layout changes
+	 */
+	static final int VERSION = 1;
+
+	private static final Gson GSON = new GsonBuilder().create();
+
+	@Getter
+	private final Path file;
+
+	private final Map<String, Checkpointable<?>> components = new LinkedHashMap<>();
+
+	/**
+	 * Ticks between each save
+	 */
+	@Setter
+	private int interval = 50;
+
+	/**
+	 * Checkpoints older than this are ignored
+	 */
+	@Setter
+	private Duration maxAge = Duration.ofMinutes(10);
+
+	/**
+	 * Checkpoints saved further than this many tiles
+	 * from the player are ignored
+	 */
+	@Setter
+	private int maxDistance = 30;
+
+	private int ticksUntilSave;
+
+	public Checkpoints(String name)
+	{
+		this(RuneLite.RUNELITE_DIR.toPath()
+			.resolve("occore")
+			.resolve("checkpoints")
+			.resolve(name.replaceAll("[^A-Za-z0-9]+", "-") + ".json"));
+	}
+
+	public Checkpoints(Path file)
+	{
+		this.file = file;
+		ticksUntilSave = interval;
+	}
+
+	public Checkpoints register(String key, Checkpointable<?> component)
+	{
+		if (components.containsKey(key))
+		{
+			throw new IllegalArgumentException("A component is already registered as " + key);
+		}
+
+		components.put(key, component);
+		return this;
+	}
+
+	/**
+	 * Save if the interval has passed. Call once per game tick.
+	 */
+	public void tick(Client client)
+	{
+		if (--ticksUntilSave <= 0)
+		{
+			save(client);
+		}
+	}
+
+	/**
+	 * Write a checkpoint now. Does nothing if not logged in.
+	 */
+	public void save(Client client)
+	{
+		ticksUntilSave = interval;
+
+		final var player = client.getLocalPlayer();
+		if (player == null || client.getAccountHash() == -1)
+		{
+			return;
+		}
+
+		final var location = player.getWorldLocation();
+		final var state = new LinkedHashMap<String, JsonElement>();
+		for (final var entry : components.entrySet())
+		{
+			final var saved = entry.getValue().saveCheckpoint();
+			if (saved != null)
+			{
+				state.put(entry.getKey(), GSON.toJsonTree(saved));
+			}
+		}
+
+		final var checkpoint = new CheckpointFile(
+			VERSION,
+			client.getAccountHash(),
+			System.currentTimeMillis(),
+			location.getX(),
+			location.getY(),
+			location.getPlane(),
+			state
+		);
+
+		try
+		{
+			write(GSON.toJson(checkpoint));
+		}
+		catch (IOException e)
+		{
+			log.warn("Failed to write checkpoint to {}", file, e);
+		}
+	}
+
+	/**
+	 * Restore the last checkpoint, if it is still valid for the current
+	 * account and location. Returns true if anything was restored.
+	 */
+	public boolean restore(Client client)
+	{
+		final var player = client.getLocalPlayer();
+		if (player == null || !Files.exists(file))
+		{
+			return false;
+		}
+
+		final CheckpointFile checkpoint;
+		try
+		{
+			checkpoint = GSON.fromJson(Files.readString(file, StandardCharsets.UTF_8), CheckpointFile.class);
+		}
+		catch (IOException | JsonParseException e)
+		{
+			log.warn("Failed to read checkpoint from {}", file, e);
+			return false;
+		}
+
+		if (checkpoint == null || checkpoint.version != VERSION || checkpoint.state == null
+			|| checkpoint.accountHash != client.getAccountHash()
+			|| System.currentTimeMillis() - checkpoint.savedAt > maxAge.toMillis())
+		{
+			return false;
+		}
+
+		final var saved = new WorldPoint(checkpoint.x, checkpoint.y, checkpoint.plane);
+		final var distance = player.getWorldLocation().distanceTo(saved);
+		if (distance == Integer.MAX_VALUE || distance > maxDistance)
+		{
+			return false;
+		}
+
+		var restored = false;
+		for (final var entry : components.entrySet())
+		{
+			final var state = checkpoint.state.get(entry.getKey());
+			if (state != null)
+			{
+				try
+				{
+					restore(entry.getValue(), state);
+					restored = true;
+				}
+				catch (JsonParseException e)
+				{
+					log.warn("Failed to restore checkpoint state for {}", entry.getKey(), e);
+				}
+			}
+		}
+
+		return restored;
+	}
+
+	private static <T> void restore(Checkpointable<T> component, JsonElement state)
+	{
+		component.restoreCheckpoint(GSON.fromJson(state, component.getCheckpointType()));
+	}
+
+	/**
+	 * Write to a temporary file and move it into place, so a
+	 * crash mid-write never leaves a broken checkpoint behind
+	 */
+	private void write(String json) throws IOException
+	{
+		Files.createDirectories(file.getParent());
+		final var temp = file.resolveSibling(file.getFileName() + ".tmp");
+		Files.writeString(temp, json, StandardCharsets.UTF_8);
+
+		try
+		{
+			Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (AtomicMoveNotSupportedException e)
+		{
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
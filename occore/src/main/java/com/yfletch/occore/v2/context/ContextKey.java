@@ -0,0 +1,74 @@
+package com.yfletch.occore.v2.context;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.Getter;
+
+/**
+ * Typed flag or arg key, interned to a small index so values can be
+ * stored in arrays. Declare keys once as constants:
+ * <pre>
+ * static final ContextKey&lt;Boolean&gt; ANIMATING = ContextKey.flag("animating");
+ * </pre>
+ * Keys with the same name share an index, so string keys used
+ * elsewhere still refer to the same value.
+ */
+public final class ContextKey<T>
+{
+	private static final Map<String, Integer> INDEXES = new ConcurrentHashMap<>();
+	private static final List<String> NAMES = new CopyOnWriteArrayList<>();
+
+	@Getter
+	private final String name;
+
+	@Getter
+	private final int index;
+
+	private ContextKey(String name)
+	{
+		this.name = name;
+		this.index = intern(name);
+	}
+
+	public static ContextKey<Boolean> flag(String name)
+	{
+		return new ContextKey<>(name);
+	}
+
+	public static ContextKey<String> arg(String name)
+	{
+		return new ContextKey<>(name);
+	}
+
+	/**
+	 * Get the index of a key name, registering it if needed
+	 */
+	public static int intern(String name)
+	{
+		if (name == null)
+		{
+			throw new IllegalArgumentException("Context keys must have a name");
+		}
+
+		final var index = INDEXES.get(name);
+		if (index != null)
+		{
+			return index;
+		}
+
+		synchronized (NAMES)
+		{
+			return INDEXES.computeIfAbsent(name, n -> {
+				NAMES.add(n);
+				return NAMES.size() - 1;
+			});
+		}
+	}
+
+	public static String nameOf(int index)
+	{
+		return NAMES.get(index);
+	}
+}
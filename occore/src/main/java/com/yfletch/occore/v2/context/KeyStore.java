@@ -0,0 +1,146 @@
+package com.yfletch.occore.v2.context;
+
+import com.yfletch.occore.v2.timer.Timeout;
+import com.yfletch.occore.v2.timer.TimingWheel;
+import java.util.Arrays;
+
+/**
+ * Values stored by interned key index. Ephemeral values are cleared
+ * by a timeout on a tick wheel, so nothing is swept each tick.
+ */
+public final class KeyStore<T>
+{
+	private final TimingWheel wheel;
+
+	/**
+	 * Called after ephemeral values are cleared
+	 */
+	private final Runnable onExpire;
+
+	private Object[] values = new Object[32];
+
+	/**
+	 * Pending expiry of each ephemeral value
+	 */
+	private Timeout[] expiries = new Timeout[32];
+
+	/**
+	 * Highest index with a value + 1
+	 */
+	private int limit = 0;
+
+	public KeyStore(TimingWheel wheel, Runnable onExpire)
+	{
+		this.wheel = wheel;
+		this.onExpire = onExpire;
+	}
+
+	@SuppressWarnings("unchecked")
+	public T get(int index)
+	{
+		return index < limit ? (T) values[index] : null;
+	}
+
+	public boolean has(int index)
+	{
+		return get(index) != null;
+	}
+
+	public void put(int index, T value)
+	{
+		ensureCapacity(index);
+		cancelExpiry(index);
+		values[index] = value;
+		limit = Math.max(limit, index + 1);
+	}
+
+	/**
+	 * Store a value that is cleared after the set amount of ticks
+	 */
+	public void put(int index, T value, int ticks)
+	{
+		put(index, value);
+
+		// values last through the tick they would reach 0
+		// on, and are cleared on the one after
+		expiries[index] = wheel.scheduleIn(ticks + 1, () -> expire(index));
+	}
+
+	private void expire(int index)
+	{
+		// skip if the value was replaced as this ran
+		final var expiry = expiries[index];
+		if (expiry == null || expiry.isPending())
+		{
+			return;
+		}
+
+		values[index] = null;
+		expiries[index] = null;
+		onExpire.run();
+	}
+
+	public void remove(int index)
+	{
+		if (index < limit)
+		{
+			cancelExpiry(index);
+			values[index] = null;
+		}
+	}
+
+	public void clear()
+	{
+		for (var i = 0; i < limit; i++)
+		{
+			cancelExpiry(i);
+		}
+
+		Arrays.fill(values, 0, limit, null);
+		limit = 0;
+	}
+
+	/**
+	 * Whether the value will be cleared after some ticks
+	 */
+	public boolean isEphemeral(int index)
+	{
+		return index < limit && expiries[index] != null;
+	}
+
+	/**
+	 * Ticks left until an ephemeral value is cleared
+	 */
+	public int ticksLeft(int index)
+	{
+		return (int) (expiries[index].getDeadline() - 1 - wheel.now());
+	}
+
+	/**
+	 * Upper bound of stored indexes, for iterating
+	 */
+	public int limit()
+	{
+		return limit;
+	}
+
+	private void cancelExpiry(int index)
+	{
+		final var expiry = expiries[index];
+		if (expiry != null)
+		{
+			expiry.cancel();
+			expiries[index] = null;
+		}
+	}
+
+	private void ensureCapacity(int index)
+	{
+		if (index >= values.length)
+		{
+			final var length = Math.max(values.length * 2, index + 1);
+			values = Arrays.copyOf(values, length);
+			expiries = Arrays.copyOf(expiries, length);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.yfletch.occore.v2.fsm;
+
+import com.yfletch.occore.v2.CoreContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A state in a {@link StateMachine}, holding the rules that apply
+ * while it is current and its guarded transitions to other states
+ */
+public class RuleState<TContext extends CoreContext>
+{
+	@Getter
+	private final String name;
+
+	private final List<Transition<TContext>> transitions = new ArrayList<>();
+
+	private Consumer<TContext> onEnter;
+
+	public RuleState(String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * Move to the target state when the guard passes. Transitions are
+	 * checked in the order they were added, and only while this state
+	 * is current.
+	 */
+	public RuleState<TContext> to(RuleState<TContext> target, Predicate<TContext> guard)
+	{
+		if (target == null || guard == null)
+		{
+			throw new IllegalArgumentException("Transitions need a target state and a guard");
+		}
+
+		transitions.add(new Transition<>(target, guard));
+		return this;
+	}
+
+	/**
+	 * Run a callback whenever this state is entered
+	 */
+	public RuleState<TContext> onEnter(Consumer<TContext> callback)
+	{
+		onEnter = callback;
+		return this;
+	}
+
+	/**
+	 * Get the target of the first transition whose guard
+	 * passes, or null to stay in this state
+	 */
+	RuleState<TContext> next(TContext ctx)
+	{
+		for (final var transition : transitions)
+		{
+			if (transition.guard.test(ctx))
+			{
+				return transition.target;
+			}
+		}
+
+		return null;
+	}
+
+	void enter(TContext ctx)
+	{
+		if (onEnter != null)
+		{
+			onEnter.accept(ctx);
+		}
+	}
+
+	public int getTransitionCount()
+	{
+		return transitions.size();
+	}
+
+	@AllArgsConstructor
+	private static final class Transition<TContext extends CoreContext>
+	{
+		private final RuleState<TContext> target;
+		private final Predicate<TContext> guard;
+	}
+}
@@ -0,0 +1,102 @@
+package com.yfletch.occore.v2.fsm;
+
+import com.yfletch.occore.v2.CoreContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Alternative to scanning every rule in priority order: rules are
+ * split into states, and on each pass only the current state's
+ * outgoing transitions are checked before its rules are. Rules
+ * outside of any state still apply in every state.
+ * <p>
+ * The first state added is the initial state.
+ */
+public class StateMachine<TContext extends CoreContext>
+{
+	private final List<RuleState<TContext>> states = new ArrayList<>();
+
+	private volatile RuleState<TContext> current;
+
+	private final AtomicLong transitions = new AtomicLong();
+
+	public void add(RuleState<TContext> state)
+	{
+		states.add(state);
+		if (current == null)
+		{
+			current = state;
+		}
+	}
+
+	public boolean isEmpty()
+	{
+		return states.isEmpty();
+	}
+
+	public RuleState<TContext> getCurrent()
+	{
+		return current;
+	}
+
+	public boolean isCurrent(RuleState<TContext> state)
+	{
+		return current == state;
+	}
+
+	/**
+	 * Follow transitions from the current state until none pass.
+	 * Returns true if the state changed.
+	 */
+	public boolean step(TContext ctx)
+	{
+		var state = current;
+		if (state == null)
+		{
+			return false;
+		}
+
+		final var start = state;
+
+		// bounded, so a cycle of passing guards
+		// can't hang resolution
+		for (var hops = 0; hops < states.size(); hops++)
+		{
+			final var next = state.next(ctx);
+			if (next == null)
+			{
+				break;
+			}
+
+			state = next;
+			transitions.incrementAndGet();
+			state.enter(ctx);
+		}
+
+		current = state;
+		return state != start;
+	}
+
+	/**
+	 * Move back to the initial state
+	 */
+	public void reset()
+	{
+		current = states.isEmpty() ? null : states.get(0);
+	}
+
+	public void clear()
+	{
+		states.clear();
+		current = null;
+	}
+
+	/**
+	 * Amount of transitions taken
+	 */
+	public long getTransitions()
+	{
+		return transitions.get();
+	}
+}
@@ -1,6 +1,7 @@
 package com.yfletch.occore.v2.interaction;
 
 import com.yfletch.occore.v2.overlay.WorldDebug;
+import com.yfletch.occore.v2.snapshot.WorldSnapshot;
 import com.yfletch.occore.v2.util.TextColor;
 import javax.annotation.Nonnull;
 import lombok.RequiredArgsConstructor;
@@ -8,7 +9,11 @@ import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Item;
 import net.runelite.api.MenuAction;
 import net.runelite.api.MenuEntry;
+import net.runelite.api.Varbits;
+import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetID;
 import net.runelite.api.widgets.WidgetInfo;
+import net.runelite.client.util.Text;
 import net.unethicalite.api.Interactable;
 import net.unethicalite.api.items.Bank;
 import net.unethicalite.client.Static;
@@ -72,6 +77,133 @@ public class DeferredEntityInteraction<T extends Interactable> implements Deferr
 		WorldDebug.setAny(interactable);
 	}
 
+	@Override
+	public WorldSnapshot predict(WorldSnapshot current)
+	{
+		final var actions = interactable.getActions();
+		if (actions == null || actions.length <= actionIndex || actions[actionIndex] == null)
+		{
+			return null;
+		}
+
+		final var action = Text.removeTags(actions[actionIndex]);
+		if (interactable instanceof Item)
+		{
+			return predictItem(current, (Item) interactable, action);
+		}
+
+		if (interactable instanceof Widget
+			&& current.isBankOpen()
+			&& WidgetInfo.TO_GROUP(((Widget) interactable).getId()) == WidgetID.BANK_GROUP_ID)
+		{
+			switch (action)
+			{
+				case "Close":
+					return current.withBankOpen(false);
+				case "Deposit inventory":
+					return depositInventory(current);
+			}
+		}
+
+		return null;
+	}
+
+	private WorldSnapshot predictItem(WorldSnapshot current, Item item, String action)
+	{
+		final var id = item.getId();
+		if (action.startsWith("Withdraw-") && item.getType() == Item.Type.BANK)
+		{
+			final var available = current.getBank().count(id);
+			var amount = Math.min(parseAmount(action, available), available);
+			if (!item.isStackable())
+			{
+				amount = Math.min(amount, current.getFreeInventorySlots());
+			}
+
+			if (amount <= 0)
+			{
+				return null;
+			}
+
+			final var bank = current.getBank().withRemoved(id, amount);
+			final var inventory = current.getInventory().withAdded(id, amount, item.isStackable(), false);
+			return bank == null || inventory == null
+				? null
+				: current.withBank(bank).withInventory(inventory);
+		}
+
+		if (action.startsWith("Deposit-") && item.getType() == Item.Type.BANK_INVENTORY)
+		{
+			final var available = current.getInventory().count(id);
+			final var amount = Math.min(parseAmount(action, available), available);
+			if (amount <= 0)
+			{
+				return null;
+			}
+
+			final var inventory = current.getInventory().withRemoved(id, amount);
+			final var bank = current.getBank().withAdded(id, amount, true, true);
+			return inventory == null || bank == null
+				? null
+				: current.withBank(bank).withInventory(inventory);
+		}
+
+		return null;
+	}
+
+	private static WorldSnapshot depositInventory(WorldSnapshot current)
+	{
+		var inventory = current.getInventory();
+		var bank = current.getBank();
+		for (var slot = 0; slot < inventory.size(); slot++)
+		{
+			final var id = inventory.getId(slot);
+			if (id >= 0)
+			{
+				bank = bank.withAdded(id, inventory.getQuantity(slot), true, true);
+			}
+		}
+
+		for (var slot = 0; slot < inventory.size(); slot++)
+		{
+			final var id = inventory.getId(slot);
+			if (id >= 0)
+			{
+				inventory = inventory.withRemoved(id, inventory.getQuantity(slot));
+			}
+		}
+
+		return current.withBank(bank).withInventory(inventory);
+	}
+
+	/**
+	 * Parse the amount from a bank option, e.g. Withdraw-5,
+	 * or -1 if unknown
+	 */
+	private static int parseAmount(String action, int available)
+	{
+		final var amount = action.substring(action.indexOf('-') + 1);
+		switch (amount)
+		{
+			case "All":
+				return available;
+			case "All-but-1":
+				return available - 1;
+			case "X":
+				// amount last entered for Withdraw-X and Deposit-X
+				return Static.getClient().getVarbitValue(Varbits.BANK_REQUESTEDQUANTITY);
+			default:
+				try
+				{
+					return Integer.parseInt(amount);
+				}
+				catch (NumberFormatException e)
+				{
+					return -1;
+				}
+		}
+	}
+
 	@Override
 	public MenuEntry createMenuEntry()
 	{
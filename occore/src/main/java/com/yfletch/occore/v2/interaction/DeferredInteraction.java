@@ -1,5 +1,6 @@
 package com.yfletch.occore.v2.interaction;
 
+import com.yfletch.occore.v2.snapshot.WorldSnapshot;
 import net.runelite.api.MenuEntry;
 
 public interface DeferredInteraction
@@ -27,6 +28,19 @@ public interface DeferredInteraction
 	{
 	}
 
+	/**
+	 * Predict the state this interaction will produce once the
+	 * server has processed it, so the next rule can be resolved
+	 * ahead of time. Return null if the outcome is unknown.
+	 * <p>
+	 * Called on the client thread, straight after the
+	 * interaction was executed.
+	 */
+	default WorldSnapshot predict(WorldSnapshot current)
+	{
+		return null;
+	}
+
 	/**
 	 * Create and return a menu entry for this interaction
 	 */
@@ -3,6 +3,8 @@ package com.yfletch.occore.v2.interaction;
 import static com.yfletch.occore.v2.util.Util.getSpellByName;
 import static com.yfletch.occore.v2.util.Util.matching;
 import static com.yfletch.occore.v2.util.Util.nameMatching;
+import com.yfletch.occore.v2.scene.NpcIndex;
+import com.yfletch.occore.v2.scene.SceneObjectIndex;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -171,7 +173,7 @@ public class Entities
 	 */
 	public static DeferredInteractable<NPC> npc(Predicate<String> predicate)
 	{
-		return of(NPCs.getNearest(nameMatches(predicate)));
+		return of(getNearestNpc(nameMatches(predicate)));
 	}
 
 	/**
@@ -179,6 +181,12 @@ public class Entities
 	 */
 	public static DeferredInteractable<NPC> npc(String... names)
 	{
+		final var index = NpcIndex.getShared();
+		if (index.isAttached())
+		{
+			return of(index.nearestNamed(names));
+		}
+
 		return npc(matching(names));
 	}
 
@@ -187,7 +195,18 @@ public class Entities
 	 */
 	public static DeferredInteractable<NPC> npc(int... ids)
 	{
-		return of(NPCs.getNearest(ids));
+		final var index = NpcIndex.getShared();
+		return of(index.isAttached() ? index.nearest(ids) : NPCs.getNearest(ids));
+	}
+
+	/**
+	 * Nearest NPC from the NPC index, or from a full search
+	 * if no runner is keeping it updated
+	 */
+	private static NPC getNearestNpc(Predicate<NPC> predicate)
+	{
+		final var index = NpcIndex.getShared();
+		return index.isAttached() ? index.nearest(predicate) : NPCs.getNearest(predicate);
 	}
 
 	/**
@@ -195,7 +214,7 @@ public class Entities
 	 */
 	public static DeferredInteractable<TileObject> object(Predicate<String> predicate)
 	{
-		return of(TileObjects.getNearest(nameMatches(predicate)));
+		return of(getNearestObject(nameMatches(predicate)));
 	}
 
 	/**
@@ -203,6 +222,12 @@ public class Entities
 	 */
 	public static DeferredInteractable<TileObject> object(String... names)
 	{
+		final var index = SceneObjectIndex.getShared();
+		if (index.isAttached())
+		{
+			return of(index.nearestNamed(names));
+		}
+
 		return object(matching(names));
 	}
 
@@ -211,7 +236,18 @@ public class Entities
 	 */
 	public static DeferredInteractable<TileObject> object(int... ids)
 	{
-		return of(TileObjects.getNearest(ids));
+		final var index = SceneObjectIndex.getShared();
+		return of(index.isAttached() ? index.nearest(ids) : TileObjects.getNearest(ids));
+	}
+
+	/**
+	 * Nearest object from the scene object index, or from
+	 * a full scene search if no runner is keeping it updated
+	 */
+	private static TileObject getNearestObject(Predicate<TileObject> predicate)
+	{
+		final var index = SceneObjectIndex.getShared();
+		return index.isAttached() ? index.nearest(predicate) : TileObjects.getNearest(predicate);
 	}
 
 	/**
@@ -482,8 +518,8 @@ public class Entities
 	{
 		return of(
 			Optional
-				.<Interactable>ofNullable(NPCs.getNearest(predicate::test))
-				.orElse(TileObjects.getNearest(predicate::test))
+				.<Interactable>ofNullable(getNearestNpc(predicate::test))
+				.orElse(getNearestObject(predicate::test))
 		);
 	}
 
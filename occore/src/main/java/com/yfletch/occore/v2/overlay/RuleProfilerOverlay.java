@@ -0,0 +1,105 @@
+package com.yfletch.occore.v2.overlay;
+
+import com.yfletch.occore.v2.RunnerPlugin;
+import com.yfletch.occore.v2.profiler.RuleProfiler;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.text.DecimalFormat;
+import net.runelite.api.MenuAction;
+import net.runelite.client.ui.overlay.OverlayMenuEntry;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.components.LineComponent;
+
+public class RuleProfilerOverlay extends OverlayPanel
+{
+	public static final String EXPORT_PROFILE = "Export";
+	public static final String CLEAR_PROFILE = "Clear";
+
+	private static final int TOP_RULES = 10;
+
+	private final DecimalFormat decimal = new DecimalFormat("0.##");
+
+	private final RunnerPlugin<?> plugin;
+	private final RuleProfiler profiler;
+
+	public RuleProfilerOverlay(RunnerPlugin<?> plugin, RuleProfiler profiler)
+	{
+		this.plugin = plugin;
+		this.profiler = profiler;
+
+		getMenuEntries().add(
+			new OverlayMenuEntry(
+				MenuAction.RUNELITE_OVERLAY,
+				EXPORT_PROFILE,
+				plugin.getName() + " rule profile"
+			)
+		);
+		getMenuEntries().add(
+			new OverlayMenuEntry(
+				MenuAction.RUNELITE_OVERLAY,
+				CLEAR_PROFILE,
+				plugin.getName() + " rule profile"
+			)
+		);
+	}
+
+	private String formatNanos(long nanos)
+	{
+		return decimal.format(nanos / 1_000_000d) + "ms";
+	}
+
+	private Color getColor(long p99)
+	{
+		if (p99 >= 10_000_000)
+		{
+			return Color.RED;
+		}
+
+		if (p99 >= 1_000_000)
+		{
+			return Color.YELLOW;
+		}
+
+		return Color.GREEN;
+	}
+
+	@Override
+	public Dimension render(Graphics2D graphics)
+	{
+		panelComponent.getChildren().add(
+			LineComponent.builder()
+				.left(plugin.getName() + " Rule profile")
+				.leftColor(Color.CYAN)
+				.right("total / p99 / checks per tick")
+				.rightColor(Color.LIGHT_GRAY)
+				.build()
+		);
+
+		panelComponent.getChildren().add(
+			LineComponent.builder()
+				.left("Passes per tick")
+				.right(decimal.format(profiler.getPassesPerTick()))
+				.build()
+		);
+
+		final var ticks = Math.max(1, profiler.getTicks());
+		for (final var profile : profiler.getTopRules(TOP_RULES))
+		{
+			final var p99 = profile.getHistogram(RuleProfiler.Phase.PREDICATE).getPercentile(99);
+			panelComponent.getChildren().add(
+				LineComponent.builder()
+					.left(profile.getName())
+					.right(
+						formatNanos(profile.getTotal())
+							+ " / " + formatNanos(p99)
+							+ " / " + decimal.format(profile.getEvaluations() / (double) ticks)
+					)
+					.rightColor(getColor(p99))
+					.build()
+			);
+		}
+
+		return super.render(graphics);
+	}
+}
@@ -0,0 +1,111 @@
+package com.yfletch.occore.v2.profiler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size histogram of durations in nanoseconds. Bucket N holds
+ * durations in [2^N, 2^(N+1)), so recording never allocates, and
+ * percentiles are accurate to within a factor of 2.
+ */
+public final class LatencyHistogram
+{
+	/**
+	 * The last bucket also holds anything longer than ~2s
+	 */
+	public static final int BUCKETS = 32;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	public static int bucketOf(long nanos)
+	{
+		if (nanos <= 1)
+		{
+			return 0;
+		}
+
+		return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos));
+	}
+
+	/**
+	 * Upper bound (exclusive) of a bucket in nanoseconds
+	 */
+	public static long upperBound(int bucket)
+	{
+		return 1L << (bucket + 1);
+	}
+
+	public void record(long nanos)
+	{
+		buckets.incrementAndGet(bucketOf(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+		max.accumulateAndGet(nanos, Math::max);
+	}
+
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	public long getTotal()
+	{
+		return total.get();
+	}
+
+	public long getMax()
+	{
+		return max.get();
+	}
+
+	public long getBucket(int bucket)
+	{
+		return buckets.get(bucket);
+	}
+
+	public long getMean()
+	{
+		final var n = count.get();
+		return n == 0 ? 0 : total.get() / n;
+	}
+
+	/**
+	 * Get the upper bound of the bucket containing the given
+	 * percentile (0-100), or 0 if nothing has been recorded
+	 */
+	public long getPercentile(double percentile)
+	{
+		final var n = count.get();
+		if (n == 0)
+		{
+			return 0;
+		}
+
+		final var target = (long) Math.ceil(n * percentile / 100d);
+		var seen = 0L;
+		for (var i = 0; i < BUCKETS; i++)
+		{
+			seen += buckets.get(i);
+			if (seen >= target)
+			{
+				return Math.min(upperBound(i), max.get());
+			}
+		}
+
+		return max.get();
+	}
+
+	public void clear()
+	{
+		for (var i = 0; i < BUCKETS; i++)
+		{
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+}
@@ -0,0 +1,96 @@
+package com.yfletch.occore.v2.profiler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+
+/**
+ * Timings and counters for a single rule
+ */
+public final class RuleProfile
+{
+	@Getter
+	private final String name;
+
+	private final LatencyHistogram[] histograms = new LatencyHistogram[RuleProfiler.Phase.values().length];
+
+	private final AtomicLong evaluations = new AtomicLong();
+	private final AtomicLong passes = new AtomicLong();
+	private final AtomicLong cached = new AtomicLong();
+
+	RuleProfile(String name)
+	{
+		this.name = name;
+		for (var i = 0; i < histograms.length; i++)
+		{
+			histograms[i] = new LatencyHistogram();
+		}
+	}
+
+	public LatencyHistogram getHistogram(RuleProfiler.Phase phase)
+	{
+		return histograms[phase.ordinal()];
+	}
+
+	/**
+	 * Amount of times the rule's predicate was actually checked
+	 */
+	public long getEvaluations()
+	{
+		return evaluations.get();
+	}
+
+	/**
+	 * Amount of checks that passed
+	 */
+	public long getPasses()
+	{
+		return passes.get();
+	}
+
+	/**
+	 * Amount of checks skipped because a stored result was re-used
+	 */
+	public long getCached()
+	{
+		return cached.get();
+	}
+
+	/**
+	 * Total time spent in this rule across all phases, in nanoseconds
+	 */
+	public long getTotal()
+	{
+		var total = 0L;
+		for (final var histogram : histograms)
+		{
+			total += histogram.getTotal();
+		}
+
+		return total;
+	}
+
+	void recordResult(boolean passed)
+	{
+		evaluations.incrementAndGet();
+		if (passed)
+		{
+			passes.incrementAndGet();
+		}
+	}
+
+	void recordCached()
+	{
+		cached.incrementAndGet();
+	}
+
+	void clear()
+	{
+		for (final var histogram : histograms)
+		{
+			histogram.clear();
+		}
+		evaluations.set(0);
+		passes.set(0);
+		cached.set(0);
+	}
+}
@@ -0,0 +1,237 @@
+package com.yfletch.occore.v2.profiler;
+
+import com.yfletch.occore.v2.rule.Rule;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Records how long each rule takes to check, build its interaction
+ * and build its messages. Timings are attributed to the rule instance
+ * (reported by name), and recording is a no-op while disabled.
+ */
+public class RuleProfiler
+{
+	private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+	public enum Phase
+	{
+		/**
+		 * Rule#passes and Rule#continues
+		 */
+		PREDICATE,
+		/**
+		 * Rule#run
+		 */
+		THEN,
+		/**
+		 * Rule#messages
+		 */
+		MESSAGES,
+	}
+
+	@Getter
+	@Setter
+	private volatile boolean enabled = false;
+
+	private final Map<Rule<?>, RuleProfile> profiles = new ConcurrentHashMap<>();
+
+	private final AtomicInteger ticks = new AtomicInteger();
+	private final AtomicInteger passes = new AtomicInteger();
+
+	/**
+	 * Get a start time to pass to {@link #record}, or 0 if disabled
+	 */
+	public long start()
+	{
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Record the time since start against a rule
+	 */
+	public void record(Rule<?> rule, Phase phase, long start)
+	{
+		if (!enabled || start == 0)
+		{
+			return;
+		}
+
+		recordElapsed(rule, phase, System.nanoTime() - start);
+	}
+
+	/**
+	 * Record an already measured time against a rule
+	 */
+	public void recordElapsed(Rule<?> rule, Phase phase, long nanos)
+	{
+		if (enabled)
+		{
+			getProfile(rule).getHistogram(phase).record(nanos);
+		}
+	}
+
+	/**
+	 * Record the result of checking a rule's predicate
+	 */
+	public void recordResult(Rule<?> rule, boolean passed)
+	{
+		if (enabled)
+		{
+			getProfile(rule).recordResult(passed);
+		}
+	}
+
+	/**
+	 * Record that a rule's stored result was re-used
+	 */
+	public void recordCached(Rule<?> rule)
+	{
+		if (enabled)
+		{
+			getProfile(rule).recordCached();
+		}
+	}
+
+	public void tick()
+	{
+		if (enabled)
+		{
+			ticks.incrementAndGet();
+		}
+	}
+
+	public int getTicks()
+	{
+		return ticks.get();
+	}
+
+	/**
+	 * Record a resolution pass
+	 */
+	public void pass()
+	{
+		if (enabled)
+		{
+			passes.incrementAndGet();
+		}
+	}
+
+	public int getPasses()
+	{
+		return passes.get();
+	}
+
+	/**
+	 * Average amount of resolution passes per tick
+	 */
+	public double getPassesPerTick()
+	{
+		return passes.get() / (double) Math.max(1, ticks.get());
+	}
+
+	/**
+	 * Get the rules with the highest total time, most expensive first
+	 */
+	public List<RuleProfile> getTopRules(int limit)
+	{
+		final var sorted = new ArrayList<>(profiles.values());
+		sorted.sort(Comparator.comparingLong(RuleProfile::getTotal).reversed());
+		return sorted.size() > limit ? sorted.subList(0, limit) : sorted;
+	}
+
+	public void clear()
+	{
+		ticks.set(0);
+		passes.set(0);
+		profiles.values().forEach(RuleProfile::clear);
+	}
+
+	/**
+	 * Forget about all rules, e.g. after the rules have been rebuilt
+	 */
+	public void reset()
+	{
+		ticks.set(0);
+		passes.set(0);
+		profiles.clear();
+	}
+
+	/**
+	 * Write all recorded data as CSV to a new file in the directory
+	 *
+	 * @return the created file
+	 */
+	public Path export(Path directory, String prefix) throws IOException
+	{
+		final var lines = new ArrayList<String>();
+
+		final var header = new StringBuilder("rule,phase,evaluations,passes,cached,ticks,resolution_passes,passes_per_tick,count,total_ns,mean_ns,p50_ns,p90_ns,p99_ns,max_ns");
+		for (var i = 0; i < LatencyHistogram.BUCKETS; i++)
+		{
+			header.append(",lt_").append(LatencyHistogram.upperBound(i)).append("_ns");
+		}
+		lines.add(header.toString());
+
+		for (final var profile : getTopRules(Integer.MAX_VALUE))
+		{
+			for (final var phase : Phase.values())
+			{
+				final var histogram = profile.getHistogram(phase);
+				final var line = new StringBuilder()
+					.append('"').append(profile.getName().replace("\"", "\"\"")).append('"')
+					.append(',').append(phase.name())
+					.append(',').append(profile.getEvaluations())
+					.append(',').append(profile.getPasses())
+					.append(',').append(profile.getCached())
+					.append(',').append(getTicks())
+					.append(',').append(getPasses())
+					.append(',').append(getPassesPerTick())
+					.append(',').append(histogram.getCount())
+					.append(',').append(histogram.getTotal())
+					.append(',').append(histogram.getMean())
+					.append(',').append(histogram.getPercentile(50))
+					.append(',').append(histogram.getPercentile(90))
+					.append(',').append(histogram.getPercentile(99))
+					.append(',').append(histogram.getMax());
+
+				for (var i = 0; i < LatencyHistogram.BUCKETS; i++)
+				{
+					line.append(',').append(histogram.getBucket(i));
+				}
+
+				lines.add(line.toString());
+			}
+		}
+
+		Files.createDirectories(directory);
+		final var file = directory.resolve(prefix + "-" + LocalDateTime.now().format(FILE_DATE) + ".csv");
+		Files.write(file, lines, StandardCharsets.UTF_8);
+		return file;
+	}
+
+	private RuleProfile getProfile(Rule<?> rule)
+	{
+		final var profile = profiles.get(rule);
+		if (profile != null)
+		{
+			return profile;
+		}
+
+		return profiles.computeIfAbsent(
+			rule,
+			r -> new RuleProfile(r.name() != null ? r.name() : "Unnamed rule")
+		);
+	}
+}
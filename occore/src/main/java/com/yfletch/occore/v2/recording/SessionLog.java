@@ -0,0 +1,103 @@
+package com.yfletch.occore.v2.recording;
+
+import com.yfletch.occore.v2.snapshot.WorldSnapshot;
+import lombok.Value;
+
+/**
+ * Binary format of a recorded session. A log is a fixed header followed
+ * by append-only records, each starting with a type byte and the game
+ * tick it happened on.
+ * <pre>
+ * header: int magic, short version, short reserved, long end, long startTime
+ * record: byte type, int tick, payload...
+ * </pre>
+ * Strings are stored as a short length followed by UTF-8 bytes.
+ */
+public final class SessionLog
+{
+	public static final int MAGIC = 0x4F435243;
+	public static final short VERSION = 1;
+
+	/**
+	 * Offset of the position after the last complete record
+	 */
+	static final int END_OFFSET = 8;
+	static final int HEADER_SIZE = 24;
+
+	static final byte SNAPSHOT = 1;
+	static final byte GAME_TICK = 2;
+	static final byte MENU_CLICK = 3;
+	static final byte CONTAINER_CHANGED = 4;
+	static final byte CHAT_MESSAGE = 5;
+	static final byte NPC_SPAWNED = 6;
+	static final byte NPC_DESPAWNED = 7;
+	static final byte OBJECT_SPAWNED = 8;
+	static final byte OBJECT_DESPAWNED = 9;
+	static final byte ITEM_NAME = 10;
+
+	/**
+	 * Snapshot containers are only written when they've changed
+	 */
+	static final byte CONTAINER_UNCHANGED = 0;
+	static final byte CONTAINER_FULL = 1;
+
+	private SessionLog()
+	{
+	}
+
+	/**
+	 * Receives records as they are read from a log, in order
+	 */
+	public interface Visitor
+	{
+		/**
+		 * The game state rules read for the next tick or click
+		 */
+		default void onSnapshot(WorldSnapshot snapshot)
+		{
+		}
+
+		default void onGameTick(int tick)
+		{
+		}
+
+		default void onMenuClick(int tick, MenuClick click)
+		{
+		}
+
+		default void onContainerChanged(int tick, int containerId, int[] ids, int[] quantities)
+		{
+		}
+
+		default void onChatMessage(int tick, int type, String name, String message)
+		{
+		}
+
+		default void onNpc(int tick, boolean spawned, int index, int id, String name, int x, int y, int plane)
+		{
+		}
+
+		default void onObject(int tick, boolean spawned, int id, int x, int y, int plane)
+		{
+		}
+
+		default void onItemName(int id, String name)
+		{
+		}
+	}
+
+	/**
+	 * A recorded menu click
+	 */
+	@Value
+	public static class MenuClick
+	{
+		String option;
+		String target;
+		int identifier;
+		int type;
+		int param0;
+		int param1;
+		int itemId;
+	}
+}
@@ -0,0 +1,215 @@
+package com.yfletch.occore.v2.recording;
+
+import com.yfletch.occore.v2.snapshot.ItemContainerSnapshot;
+import com.yfletch.occore.v2.snapshot.WorldSnapshot;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import lombok.Getter;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Reads a {@link SessionLog} written by a {@link SessionRecorder}
+ */
+public class SessionReader
+{
+	private final ByteBuffer buffer;
+
+	@Getter
+	private final long startTime;
+
+	private final int end;
+
+	private ItemContainerSnapshot inventory = ItemContainerSnapshot.EMPTY;
+	private ItemContainerSnapshot bank = ItemContainerSnapshot.EMPTY;
+	private ItemContainerSnapshot equipment = ItemContainerSnapshot.EMPTY;
+
+	private SessionReader(ByteBuffer buffer)
+	{
+		this.buffer = buffer;
+
+		if (buffer.getInt() != SessionLog.MAGIC)
+		{
+			throw new IllegalArgumentException("Not a session log");
+		}
+
+		final var version = buffer.getShort();
+		if (version != SessionLog.VERSION)
+		{
+			throw new IllegalArgumentException("Unsupported session log version " + version);
+		}
+
+		buffer.getShort();
+		end = (int) buffer.getLong();
+		startTime = buffer.getLong();
+	}
+
+	public static SessionReader open(Path file) throws IOException
+	{
+		try (final var channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			// the mapping stays valid after the channel is closed
+			return new SessionReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Read every record in order
+	 */
+	public void read(SessionLog.Visitor visitor)
+	{
+		buffer.position(SessionLog.HEADER_SIZE);
+		while (buffer.position() < end)
+		{
+			final var type = buffer.get();
+			final var tick = buffer.getInt();
+			switch (type)
+			{
+				case SessionLog.SNAPSHOT:
+					visitor.onSnapshot(readSnapshot(tick));
+					break;
+				case SessionLog.GAME_TICK:
+					visitor.onGameTick(tick);
+					break;
+				case SessionLog.MENU_CLICK:
+					visitor.onMenuClick(tick, new SessionLog.MenuClick(
+						readString(),
+						readString(),
+						buffer.getInt(),
+						buffer.getInt(),
+						buffer.getInt(),
+						buffer.getInt(),
+						buffer.getInt()
+					));
+					break;
+				case SessionLog.CONTAINER_CHANGED:
+				{
+					final var containerId = buffer.getInt();
+					final var size = buffer.getShort();
+					final var ids = new int[size];
+					final var quantities = new int[size];
+					for (var i = 0; i < size; i++)
+					{
+						ids[i] = buffer.getInt();
+						quantities[i] = buffer.getInt();
+					}
+					visitor.onContainerChanged(tick, containerId, ids, quantities);
+					break;
+				}
+				case SessionLog.CHAT_MESSAGE:
+					visitor.onChatMessage(tick, buffer.getShort(), readString(), readString());
+					break;
+				case SessionLog.NPC_SPAWNED:
+				case SessionLog.NPC_DESPAWNED:
+				{
+					final var index = buffer.getInt();
+					final var id = buffer.getInt();
+					final var name = readString();
+					final var point = readPoint();
+					visitor.onNpc(
+						tick, type == SessionLog.NPC_SPAWNED, index, id, name,
+						point != null ? point.getX() : -1,
+						point != null ? point.getY() : -1,
+						point != null ? point.getPlane() : -1
+					);
+					break;
+				}
+				case SessionLog.OBJECT_SPAWNED:
+				case SessionLog.OBJECT_DESPAWNED:
+				{
+					final var id = buffer.getInt();
+					final var point = readPoint();
+					visitor.onObject(
+						tick, type == SessionLog.OBJECT_SPAWNED, id,
+						point != null ? point.getX() : -1,
+						point != null ? point.getY() : -1,
+						point != null ? point.getPlane() : -1
+					);
+					break;
+				}
+				case SessionLog.ITEM_NAME:
+					visitor.onItemName(buffer.getInt(), readString());
+					break;
+				default:
+					throw new IllegalStateException("Unknown record type " + type + " at " + (buffer.position() - 5));
+			}
+		}
+	}
+
+	private WorldSnapshot readSnapshot(int tick)
+	{
+		inventory = readContainer(inventory);
+		bank = readContainer(bank);
+		equipment = readContainer(equipment);
+		final var location = readPoint();
+		final var animation = buffer.getInt();
+		final var flags = buffer.get();
+
+		final var varbitCount = buffer.getShort();
+		final var varbitIds = new int[varbitCount];
+		final var varbitValues = new int[varbitCount];
+		for (var i = 0; i < varbitCount; i++)
+		{
+			varbitIds[i] = buffer.getInt();
+			varbitValues[i] = buffer.getInt();
+		}
+
+		return new WorldSnapshot(
+			tick,
+			inventory,
+			bank,
+			equipment,
+			location,
+			animation,
+			(flags & 1) != 0,
+			(flags & 2) != 0,
+			varbitIds,
+			varbitValues
+		);
+	}
+
+	private ItemContainerSnapshot readContainer(ItemContainerSnapshot previous)
+	{
+		if (buffer.get() == SessionLog.CONTAINER_UNCHANGED)
+		{
+			return previous;
+		}
+
+		final var size = buffer.getShort();
+		final var ids = new int[size];
+		final var quantities = new int[size];
+		for (var i = 0; i < size; i++)
+		{
+			ids[i] = buffer.getInt();
+			quantities[i] = buffer.getInt();
+		}
+
+		return ItemContainerSnapshot.of(ids, quantities);
+	}
+
+	private WorldPoint readPoint()
+	{
+		if (buffer.get() == 0)
+		{
+			return null;
+		}
+
+		return new WorldPoint(buffer.getInt(), buffer.getInt(), buffer.get());
+	}
+
+	private String readString()
+	{
+		final var length = buffer.getShort();
+		if (length < 0)
+		{
+			return null;
+		}
+
+		final var bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,312 @@
+package com.yfletch.occore.v2.recording;
+
+import com.yfletch.occore.v2.snapshot.ItemContainerSnapshot;
+import com.yfletch.occore.v2.snapshot.WorldSnapshot;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Item;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.NPC;
+import net.runelite.api.TileObject;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.GameObjectDespawned;
+import net.runelite.api.events.GameObjectSpawned;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.client.eventbus.Subscribe;
+
+/**
+ * Records the events a runner consumes, and the snapshots its rules
+ * read, to a memory-mapped {@link SessionLog}. The log has a fixed
+ * capacity - once full, recording stops.
+ * <p>
+ * Snapshots, ticks and clicks are recorded by the runner itself so
+ * they are in the order the runner saw them. Everything else is
+ * recorded by subscribing to the event bus. Must only be used from
+ * the client thread.
+ */
+@Slf4j
+public class SessionRecorder implements AutoCloseable
+{
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+
+	@Getter
+	private final Path file;
+
+	@Getter
+	private boolean full = false;
+
+	private int tick = -1;
+	private WorldSnapshot lastSnapshot;
+	private final Set<Integer> writtenNames = new HashSet<>();
+
+	private SessionRecorder(Path file, FileChannel channel, MappedByteBuffer buffer)
+	{
+		this.file = file;
+		this.channel = channel;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Create a new log file of the given size (in bytes)
+	 */
+	public static SessionRecorder open(Path file, int capacity) throws IOException
+	{
+		if (capacity <= SessionLog.HEADER_SIZE)
+		{
+			throw new IllegalArgumentException("Capacity must be larger than the header");
+		}
+
+		Files.createDirectories(file.getParent());
+		final var channel = FileChannel.open(
+			file,
+			StandardOpenOption.CREATE_NEW,
+			StandardOpenOption.READ,
+			StandardOpenOption.WRITE
+		);
+		final var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+		buffer.putInt(SessionLog.MAGIC);
+		buffer.putShort(SessionLog.VERSION);
+		buffer.putShort((short) 0);
+		buffer.putLong(SessionLog.HEADER_SIZE);
+		buffer.putLong(System.currentTimeMillis());
+
+		return new SessionRecorder(file, channel, buffer);
+	}
+
+	/**
+	 * Amount of bytes written, including the header
+	 */
+	public int getSize()
+	{
+		return buffer.position();
+	}
+
+	public void recordSnapshot(WorldSnapshot snapshot)
+	{
+		tick = snapshot.getTick();
+		writeItemNames(snapshot.getInventory());
+		writeItemNames(snapshot.getBank());
+		writeItemNames(snapshot.getEquipment());
+
+		final var previous = lastSnapshot;
+		write(SessionLog.SNAPSHOT, () -> {
+			writeContainer(snapshot.getInventory(), previous != null ? previous.getInventory() : null);
+			writeContainer(snapshot.getBank(), previous != null ? previous.getBank() : null);
+			writeContainer(snapshot.getEquipment(), previous != null ? previous.getEquipment() : null);
+			writePoint(snapshot.getPlayerLocation());
+			buffer.putInt(snapshot.getAnimation());
+			buffer.put((byte) ((snapshot.isBankOpen() ? 1 : 0) | (snapshot.isDialogOpen() ? 2 : 0)));
+			buffer.putShort((short) snapshot.getVarbitCount());
+			for (var i = 0; i < snapshot.getVarbitCount(); i++)
+			{
+				buffer.putInt(snapshot.getVarbitId(i));
+				buffer.putInt(snapshot.getVarbitValue(i));
+			}
+		});
+
+		if (!full)
+		{
+			lastSnapshot = snapshot;
+		}
+	}
+
+	public void recordGameTick()
+	{
+		write(SessionLog.GAME_TICK, () -> {
+		});
+	}
+
+	public void recordMenuClick(MenuEntry entry)
+	{
+		write(SessionLog.MENU_CLICK, () -> {
+			writeString(entry.getOption());
+			writeString(entry.getTarget());
+			buffer.putInt(entry.getIdentifier());
+			buffer.putInt(entry.getType() != null ? entry.getType().getId() : -1);
+			buffer.putInt(entry.getParam0());
+			buffer.putInt(entry.getParam1());
+			buffer.putInt(entry.getItemId());
+		});
+	}
+
+	@Subscribe
+	public void onItemContainerChanged(ItemContainerChanged event)
+	{
+		final var items = event.getItemContainer().getItems();
+		write(SessionLog.CONTAINER_CHANGED, () -> {
+			buffer.putInt(event.getContainerId());
+			buffer.putShort((short) items.length);
+			for (final Item item : items)
+			{
+				buffer.putInt(item.getId());
+				buffer.putInt(item.getQuantity());
+			}
+		});
+	}
+
+	@Subscribe
+	public void onChatMessage(ChatMessage event)
+	{
+		write(SessionLog.CHAT_MESSAGE, () -> {
+			buffer.putShort((short) event.getType().ordinal());
+			writeString(event.getName());
+			writeString(event.getMessage());
+		});
+	}
+
+	@Subscribe
+	public void onNpcSpawned(NpcSpawned event)
+	{
+		writeNpc(SessionLog.NPC_SPAWNED, event.getNpc());
+	}
+
+	@Subscribe
+	public void onNpcDespawned(NpcDespawned event)
+	{
+		writeNpc(SessionLog.NPC_DESPAWNED, event.getNpc());
+	}
+
+	@Subscribe
+	public void onGameObjectSpawned(GameObjectSpawned event)
+	{
+		writeObject(SessionLog.OBJECT_SPAWNED, event.getGameObject());
+	}
+
+	@Subscribe
+	public void onGameObjectDespawned(GameObjectDespawned event)
+	{
+		writeObject(SessionLog.OBJECT_DESPAWNED, event.getGameObject());
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		buffer.force();
+		channel.close();
+	}
+
+	private void writeNpc(byte type, NPC npc)
+	{
+		write(type, () -> {
+			buffer.putInt(npc.getIndex());
+			buffer.putInt(npc.getId());
+			writeString(npc.getName());
+			writePoint(npc.getWorldLocation());
+		});
+	}
+
+	private void writeObject(byte type, TileObject object)
+	{
+		write(type, () -> {
+			buffer.putInt(object.getId());
+			writePoint(object.getWorldLocation());
+		});
+	}
+
+	private void writeItemNames(ItemContainerSnapshot container)
+	{
+		for (var slot = 0; slot < container.size(); slot++)
+		{
+			final var id = container.getId(slot);
+			if (id >= 0 && !writtenNames.contains(id))
+			{
+				final var name = ItemContainerSnapshot.getName(id);
+				write(SessionLog.ITEM_NAME, () -> {
+					buffer.putInt(id);
+					writeString(name);
+				});
+
+				if (!full)
+				{
+					writtenNames.add(id);
+				}
+			}
+		}
+	}
+
+	private void writeContainer(ItemContainerSnapshot container, ItemContainerSnapshot previous)
+	{
+		if (container.equals(previous))
+		{
+			buffer.put(SessionLog.CONTAINER_UNCHANGED);
+			return;
+		}
+
+		buffer.put(SessionLog.CONTAINER_FULL);
+		buffer.putShort((short) container.size());
+		for (var slot = 0; slot < container.size(); slot++)
+		{
+			buffer.putInt(container.getId(slot));
+			buffer.putInt(container.getQuantity(slot));
+		}
+	}
+
+	private void writePoint(WorldPoint point)
+	{
+		if (point == null)
+		{
+			buffer.put((byte) 0);
+			return;
+		}
+
+		buffer.put((byte) 1);
+		buffer.putInt(point.getX());
+		buffer.putInt(point.getY());
+		buffer.put((byte) point.getPlane());
+	}
+
+	private void writeString(String value)
+	{
+		if (value == null)
+		{
+			buffer.putShort((short) -1);
+			return;
+		}
+
+		final var bytes = value.getBytes(StandardCharsets.UTF_8);
+		final var length = Math.min(bytes.length, Short.MAX_VALUE);
+		buffer.putShort((short) length);
+		buffer.put(bytes, 0, length);
+	}
+
+	/**
+	 * Write a whole record, or nothing if it doesn't fit
+	 */
+	private void write(byte type, Runnable payload)
+	{
+		if (full)
+		{
+			return;
+		}
+
+		final var start = buffer.position();
+		try
+		{
+			buffer.put(type);
+			buffer.putInt(tick);
+			payload.run();
+			buffer.putLong(SessionLog.END_OFFSET, buffer.position());
+		}
+		catch (BufferOverflowException e)
+		{
+			buffer.position(start);
+			full = true;
+			log.info("Session recording {} is full ({} bytes)", file.getFileName(), start);
+		}
+	}
+}
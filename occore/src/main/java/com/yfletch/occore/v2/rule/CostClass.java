@@ -0,0 +1,22 @@
+package com.yfletch.occore.v2.rule;
+
+/**
+ * Rough cost of checking a rule. When a resolution pass is running
+ * out of its time budget, more expensive rules are deferred to the
+ * next pass first.
+ */
+public enum CostClass
+{
+	/**
+	 * Never deferred
+	 */
+	CHEAP,
+	/**
+	 * Deferred once the budget has run out
+	 */
+	NORMAL,
+	/**
+	 * Deferred once half of the budget has been used
+	 */
+	EXPENSIVE,
+}
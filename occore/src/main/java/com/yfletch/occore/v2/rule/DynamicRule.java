@@ -3,11 +3,14 @@ package com.yfletch.occore.v2.rule;
 import com.yfletch.occore.v2.CoreContext;
 import com.yfletch.occore.v2.interaction.DeferredInteraction;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
@@ -50,9 +53,26 @@ public final class DynamicRule<TContext extends CoreContext> implements Rule<TCo
 	@Getter
 	private boolean resetsOnTick = false;
 
+	@Getter
+	private Set<StateDomain> reads;
+
+	@Getter
+	private CostClass cost = CostClass.NORMAL;
+
 	private Consumer<TContext> onClick;
 	private Consumer<TContext> onComplete;
 
+	/**
+	 * Result of "then" for the current resolution pass. Building an
+	 * interaction can involve entity lookups and pathfinding, so it
+	 * should only happen once per pass.
+	 */
+	@Setter(AccessLevel.NONE)
+	private volatile Interaction interaction;
+
+	@Setter(AccessLevel.NONE)
+	private ResultCache<TContext> cache;
+
 	public DynamicRule<TContext> message(String... messages)
 	{
 		this.messages = c -> Arrays.asList(messages);
@@ -130,6 +150,65 @@ public final class DynamicRule<TContext extends CoreContext> implements Rule<TCo
 		return skipIfNull(true);
 	}
 
+	/**
+	 * Declare the state domains this rule reads from. The rule will
+	 * only be re-checked when one of these changes, so this must cover
+	 * everything read by when, until, and then (if using skipIfNull).
+	 */
+	public DynamicRule<TContext> reads(StateDomain first, StateDomain... rest)
+	{
+		return reads(EnumSet.of(first, rest));
+	}
+
+	/**
+	 * Re-use the results of when, until and then for a number of
+	 * ticks. Useful for expensive checks that change slowly, such
+	 * as spell.canCast() or path reachability. Can be combined
+	 * with cacheUntil.
+	 */
+	public DynamicRule<TContext> cacheFor(int ticks)
+	{
+		getCache().setTicks(ticks);
+		return this;
+	}
+
+	/**
+	 * Re-use the results of when, until and then until one of
+	 * these state domains changes. Can be combined with cacheFor.
+	 */
+	public DynamicRule<TContext> cacheUntil(StateDomain first, StateDomain... rest)
+	{
+		getCache().setMask(StateDomain.mask(EnumSet.of(first, rest)));
+		return this;
+	}
+
+	private ResultCache<TContext> getCache()
+	{
+		if (cache == null)
+		{
+			cache = new ResultCache<>();
+		}
+
+		return cache;
+	}
+
+	/**
+	 * Amount of times a cached result was re-used
+	 */
+	public long getCacheHits()
+	{
+		return cache != null ? cache.getHits() : 0;
+	}
+
+	/**
+	 * Amount of times a result had to be (re-)computed
+	 * while caching
+	 */
+	public long getCacheMisses()
+	{
+		return cache != null ? cache.getMisses() : 0;
+	}
+
 	/**
 	 * Mark this rule as a no-op - nothing will happen, and instead the
 	 * message will display
@@ -152,8 +231,8 @@ public final class DynamicRule<TContext extends CoreContext> implements Rule<TCo
 			return false;
 		}
 
-		return (when == null || when.test(ctx))
-			&& (!skipIfNull || then.apply(ctx) != null);
+		return (when == null || test(cache != null ? cache.when : null, when, ctx))
+			&& (!skipIfNull || run(ctx) != null);
 	}
 
 	@Override
@@ -165,13 +244,36 @@ public final class DynamicRule<TContext extends CoreContext> implements Rule<TCo
 	@Override
 	public boolean continues(TContext ctx)
 	{
-		return until != null && until.test(ctx);
+		return until != null && test(cache != null ? cache.until : null, until, ctx);
+	}
+
+	private boolean test(ResultCache.Entry entry, Predicate<TContext> predicate, TContext ctx)
+	{
+		return entry != null
+			? cache.get(entry, ctx, predicate::test)
+			: predicate.test(ctx);
 	}
 
 	@Override
 	public DeferredInteraction run(TContext ctx)
 	{
-		return then == null ? null : then.apply(ctx);
+		if (then == null)
+		{
+			return null;
+		}
+
+		final var pass = ctx.getResolutionPass();
+		final var previous = interaction;
+		if (previous != null && previous.pass == pass)
+		{
+			return previous.result;
+		}
+
+		final var result = cache != null
+			? cache.get(cache.then, ctx, then)
+			: then.apply(ctx);
+		interaction = new Interaction(pass, result);
+		return result;
 	}
 
 	@Override
@@ -256,4 +358,11 @@ public final class DynamicRule<TContext extends CoreContext> implements Rule<TCo
 	{
 		return repeatsLeft;
 	}
+
+	@AllArgsConstructor
+	private static final class Interaction
+	{
+		private final long pass;
+		private final DeferredInteraction result;
+	}
 }
@@ -2,14 +2,19 @@ package com.yfletch.occore.v2.rule;
 
 import com.yfletch.occore.v2.CoreContext;
 import com.yfletch.occore.v2.interaction.DeferredInteractable;
+import com.yfletch.occore.v2.snapshot.ItemContainerSnapshot;
 import com.yfletch.occore.v2.util.TextColor;
 import static com.yfletch.occore.v2.util.Util.formatList;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
@@ -35,10 +40,19 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	@Accessors(fluent = true)
 	private String name;
 
+	private final static int ITEM_DOMAINS = StateDomain.mask(StateDomain.INVENTORY, StateDomain.BANK, StateDomain.EQUIPMENT);
+
 	// if any requirement evaluates to false,
-	// then the key (error) will be displayed
-	@Getter
-	private final Map<String, Predicate<TContext>> requirements = new HashMap<>();
+	// then its error will be displayed. ordered
+	// cheapest first
+	private final List<Requirement<TContext>> requirements = new ArrayList<>();
+
+	/**
+	 * Item IDs used by all ID-based item requirements, so each
+	 * container only needs to be scanned once for all of them
+	 */
+	private final BitSet requiredIds = new BitSet();
+	private volatile ItemPresence itemPresence;
 
 	/**
 	 * Specify when these requirements should apply. If this evaluates to false,
@@ -50,9 +64,149 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 			   chain = true)
 	private Predicate<TContext> when;
 
+	/**
+	 * Explicitly declared state domains. If not set, these will
+	 * be inferred from the requirements that were added.
+	 */
+	@Setter
+	@Accessors(fluent = true,
+			   chain = true)
+	private Set<StateDomain> reads;
+
+	@Setter
+	@Getter
+	@Accessors(fluent = true,
+			   chain = true)
+	private CostClass cost = CostClass.NORMAL;
+
+	/**
+	 * Requirements that failed the last time this rule was checked
+	 * against the real state, and the messages built from them
+	 */
+	private volatile Failures failures;
+
+	private final Set<StateDomain> inferredReads = EnumSet.noneOf(StateDomain.class);
+	private boolean hasUnknownReads = false;
+
+	/**
+	 * Get an item's name for messages, from the names already
+	 * known to snapshots if possible (e.g. when headless)
+	 */
 	private String getItemName(int id)
 	{
-		return Static.getItemManager().getItemComposition(id).getName();
+		final var known = ItemContainerSnapshot.getName(id);
+		if (known != null)
+		{
+			return known;
+		}
+
+		final var name = Static.getItemManager().getItemComposition(id).getName();
+		ItemContainerSnapshot.registerName(id, name);
+		return name;
+	}
+
+	private boolean isIn(TContext ctx, WorldArea worldArea)
+	{
+		final var location = ctx.getSnapshot().getPlayerLocation();
+		return location != null && worldArea.contains(location);
+	}
+
+	/**
+	 * Add a requirement, and record which domains it reads. If no domains
+	 * are given, this rule will need to be checked on every pass.
+	 * Requirements are checked in order of cost.
+	 */
+	private void require(String error, CostClass cost, Predicate<TContext> predicate, StateDomain... domains)
+	{
+		final var mask = domains.length == 0 ? StateDomain.ALL : StateDomain.mask(domains);
+		final var requirement = new Requirement<>(error, cost, predicate, mask);
+
+		// an error can only be shown once, so replaces any
+		// previous requirement with the same error
+		requirements.removeIf(r -> r.error.equals(error));
+
+		var index = requirements.size();
+		while (index > 0 && requirements.get(index - 1).cost.compareTo(cost) > 0)
+		{
+			index--;
+		}
+		requirements.add(index, requirement);
+
+		if (domains.length == 0)
+		{
+			hasUnknownReads = true;
+		}
+
+		inferredReads.addAll(List.of(domains));
+	}
+
+	/**
+	 * Add a requirement on an item ID, checked against the
+	 * combined item scan of each container
+	 */
+	private void requireItem(String error, int id, Predicate<ItemPresence> predicate, StateDomain... domains)
+	{
+		requiredIds.set(id);
+		itemPresence = null;
+		require(error, CostClass.CHEAP, c -> predicate.test(getItemPresence(c)), domains);
+	}
+
+	/**
+	 * Get which of the required item IDs are in each container.
+	 * Re-used until one of the containers changes.
+	 */
+	private ItemPresence getItemPresence(TContext ctx)
+	{
+		final var stamp = ctx.getStamp(ITEM_DOMAINS);
+		final var cached = itemPresence;
+		if (cached != null && stamp != -1 && cached.stamp == stamp)
+		{
+			return cached;
+		}
+
+		final var snapshot = ctx.getSnapshot();
+		final var presence = new ItemPresence(
+			stamp,
+			scan(snapshot.getInventory()),
+			scan(snapshot.getBank()),
+			scan(snapshot.getEquipment())
+		);
+
+		if (stamp != -1)
+		{
+			itemPresence = presence;
+		}
+
+		return presence;
+	}
+
+	private BitSet scan(ItemContainerSnapshot container)
+	{
+		final var found = new BitSet();
+		for (var slot = 0; slot < container.size(); slot++)
+		{
+			final var id = container.getId(slot);
+			if (id >= 0 && requiredIds.get(id))
+			{
+				found.set(id);
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * Requirements in the order they are checked, by error
+	 */
+	public Map<String, Predicate<TContext>> getRequirements()
+	{
+		final var map = new LinkedHashMap<String, Predicate<TContext>>();
+		for (final var requirement : requirements)
+		{
+			map.put(requirement.error, requirement.predicate);
+		}
+
+		return map;
 	}
 
 	/**
@@ -60,7 +214,7 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	 */
 	public RequirementRule<TContext> must(Predicate<TContext> predicate, String error)
 	{
-		requirements.put(TextColor.WHITE + error, predicate);
+		require(TextColor.WHITE + error, CostClass.NORMAL, predicate);
 		return this;
 	}
 
@@ -69,7 +223,7 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	 */
 	public RequirementRule<TContext> mustNot(Predicate<TContext> predicate, String error)
 	{
-		requirements.put(TextColor.WHITE + error, predicate.negate());
+		require(TextColor.WHITE + error, CostClass.NORMAL, predicate.negate());
 		return this;
 	}
 
@@ -82,9 +236,11 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 		for (final var id : ids)
 		{
 			final var name = getItemName(id);
-			requirements.put(
+			requireItem(
 				MUST_HAVE_ITEM + name,
-				c -> Inventory.contains(id) || Bank.contains(id) || Equipment.contains(id)
+				id,
+				p -> p.inventory.get(id) || p.bank.get(id) || p.equipment.get(id),
+				StateDomain.INVENTORY, StateDomain.BANK, StateDomain.EQUIPMENT
 			);
 		}
 
@@ -99,9 +255,11 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	 */
 	public RequirementRule<TContext> mustHave(Predicate<Item> predicate, String name)
 	{
-		requirements.put(
+		require(
 			MUST_HAVE_ITEM + name,
-			c -> Inventory.contains(predicate) || Bank.contains(predicate) || Equipment.contains(predicate)
+			CostClass.EXPENSIVE,
+			c -> Inventory.contains(predicate) || Bank.contains(predicate) || Equipment.contains(predicate),
+			StateDomain.INVENTORY, StateDomain.BANK, StateDomain.EQUIPMENT
 		);
 
 		return this;
@@ -117,9 +275,11 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	{
 		for (final var name : names)
 		{
-			requirements.put(
+			require(
 				MUST_HAVE_ITEM + name,
-				c -> Inventory.contains(name) || Bank.contains(name) || Equipment.contains(name)
+				CostClass.NORMAL,
+				c -> c.getSnapshot().has(name),
+				StateDomain.INVENTORY, StateDomain.BANK, StateDomain.EQUIPMENT
 			);
 		}
 
@@ -134,9 +294,11 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 		for (final var id : ids)
 		{
 			final var name = getItemName(id);
-			requirements.put(
+			requireItem(
 				MUST_HAVE_ITEM + name + TextColor.WHITE + " in inventory",
-				c -> Inventory.contains(id)
+				id,
+				p -> p.inventory.get(id),
+				StateDomain.INVENTORY
 			);
 		}
 
@@ -152,9 +314,11 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	{
 		for (final var name : names)
 		{
-			requirements.put(
+			require(
 				MUST_HAVE_ITEM + name + TextColor.WHITE + " in inventory",
-				c -> Inventory.contains(name)
+				CostClass.NORMAL,
+				c -> c.getSnapshot().getInventory().contains(name),
+				StateDomain.INVENTORY
 			);
 		}
 
@@ -168,9 +332,11 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	 */
 	public RequirementRule<TContext> mustHaveAnyInInventory(String... names)
 	{
-		requirements.put(
+		require(
 			MUST_HAVE_ITEM + formatList(names, "or") + TextColor.WHITE + " in inventory",
-			c -> Inventory.contains(names)
+			CostClass.NORMAL,
+			c -> c.getSnapshot().getInventory().contains(names),
+			StateDomain.INVENTORY
 		);
 
 		return this;
@@ -183,9 +349,11 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	 */
 	public RequirementRule<TContext> mustHaveInInventory(Predicate<Item> predicate, String name)
 	{
-		requirements.put(
+		require(
 			MUST_HAVE_ITEM + name + TextColor.WHITE + " in inventory",
-			c -> Inventory.contains(predicate)
+			CostClass.EXPENSIVE,
+			c -> Inventory.contains(predicate),
+			StateDomain.INVENTORY
 		);
 
 		return this;
@@ -199,9 +367,11 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 		for (final var id : ids)
 		{
 			final var name = getItemName(id);
-			requirements.put(
+			requireItem(
 				MUST_HAVE_ITEM + name + TextColor.WHITE + " equipped",
-				c -> Equipment.contains(id)
+				id,
+				p -> p.equipment.get(id),
+				StateDomain.EQUIPMENT
 			);
 		}
 
@@ -217,9 +387,11 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	{
 		for (final var name : names)
 		{
-			requirements.put(
+			require(
 				MUST_HAVE_ITEM + name + TextColor.WHITE + " equipped",
-				c -> Equipment.contains(name)
+				CostClass.NORMAL,
+				c -> c.getSnapshot().getEquipment().contains(name),
+				StateDomain.EQUIPMENT
 			);
 		}
 
@@ -234,9 +406,11 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 		for (final var id : ids)
 		{
 			final var name = getItemName(id);
-			requirements.put(
+			requireItem(
 				MUST_HAVE_ITEM + name + TextColor.WHITE + " in inventory or equipped",
-				c -> Inventory.contains(id) || Equipment.contains(id)
+				id,
+				p -> p.inventory.get(id) || p.equipment.get(id),
+				StateDomain.INVENTORY, StateDomain.EQUIPMENT
 			);
 		}
 
@@ -250,9 +424,11 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	 */
 	public RequirementRule<TContext> mustHaveOnPerson(Predicate<Item> predicate, String name)
 	{
-		requirements.put(
+		require(
 			MUST_HAVE_ITEM + name + TextColor.WHITE + " in inventory or equipped",
-			c -> Inventory.contains(predicate) || Equipment.contains(predicate)
+			CostClass.EXPENSIVE,
+			c -> Inventory.contains(predicate) || Equipment.contains(predicate),
+			StateDomain.INVENTORY, StateDomain.EQUIPMENT
 		);
 
 		return this;
@@ -267,9 +443,11 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	{
 		for (final var name : names)
 		{
-			requirements.put(
+			require(
 				MUST_HAVE_ITEM + name + TextColor.WHITE + " in inventory or equipped",
-				c -> Inventory.contains(name) || Equipment.contains(name)
+				CostClass.NORMAL,
+				c -> c.getSnapshot().hasOnPerson(name),
+				StateDomain.INVENTORY, StateDomain.EQUIPMENT
 			);
 		}
 
@@ -284,9 +462,11 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 		for (final var id : ids)
 		{
 			final var name = getItemName(id);
-			requirements.put(
+			requireItem(
 				MUST_HAVE_ITEM + name + TextColor.WHITE + " in bank",
-				c -> Bank.contains(id)
+				id,
+				p -> p.bank.get(id),
+				StateDomain.BANK
 			);
 		}
 
@@ -302,9 +482,11 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	{
 		for (final var name : names)
 		{
-			requirements.put(
+			require(
 				MUST_HAVE_ITEM + name + TextColor.WHITE + " in bank",
-				c -> Bank.contains(name)
+				CostClass.NORMAL,
+				c -> c.getSnapshot().getBank().contains(name),
+				StateDomain.BANK
 			);
 		}
 
@@ -317,9 +499,10 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	 */
 	public RequirementRule<TContext> mustBeAbleToCast(Spell spell)
 	{
-		requirements.put(
+		require(
 			TextColor.WHITE + "Must be able to cast " + TextColor.SPELL
 				+ WordUtils.capitalizeFully(spell.toString().replaceAll("_", " ")),
+			CostClass.EXPENSIVE,
 			c -> spell.canCast()
 		);
 
@@ -331,10 +514,14 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	 */
 	public RequirementRule<TContext> mustBeIn(String name, WorldArea worldArea)
 	{
-		return must(
-			c -> worldArea.contains(Static.getClient().getLocalPlayer().getWorldLocation()),
-			TextColor.WHITE + "Must be in " + TextColor.OBJECT + name
+		require(
+			TextColor.WHITE + "Must be in " + TextColor.OBJECT + name,
+			CostClass.NORMAL,
+			c -> isIn(c, worldArea),
+			StateDomain.LOCATION
 		);
+
+		return this;
 	}
 
 	/**
@@ -343,10 +530,14 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	 */
 	public RequirementRule<TContext> mustBeNear(WorldArea worldArea, String name)
 	{
-		return must(
-			c -> worldArea.contains(Static.getClient().getLocalPlayer().getWorldLocation()),
-			TextColor.WHITE + "Must be near " + TextColor.OBJECT + name
+		require(
+			TextColor.WHITE + "Must be near " + TextColor.OBJECT + name,
+			CostClass.NORMAL,
+			c -> isIn(c, worldArea),
+			StateDomain.LOCATION
 		);
+
+		return this;
 	}
 
 	/**
@@ -355,15 +546,18 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 	 */
 	public RequirementRule<TContext> mustBeNear(Supplier<?> supplier, String overrideName)
 	{
-		return must(
+		require(
+			TextColor.WHITE + "Must be near " + TextColor.OBJECT + overrideName,
+			CostClass.EXPENSIVE,
 			c -> {
 				final var interactable = supplier.get();
 				return interactable instanceof DeferredInteractable
 					? ((DeferredInteractable<?>) interactable).exists()
 					: interactable != null;
-			},
-			TextColor.WHITE + "Must be near " + TextColor.OBJECT + overrideName
+			}
 		);
+
+		return this;
 	}
 
 	/**
@@ -399,6 +593,18 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 		return mustBeNear(() -> actual, "Unknown");
 	}
 
+	@Override
+	public Set<StateDomain> reads()
+	{
+		if (reads != null)
+		{
+			return reads;
+		}
+
+		// can't infer anything from custom predicates
+		return when != null || hasUnknownReads ? null : inferredReads;
+	}
+
 	@Override
 	public boolean passes(TContext ctx)
 	{
@@ -406,26 +612,150 @@ public class RequirementRule<TContext extends CoreContext> implements Rule<TCont
 		// pass this rule
 		if (when != null && !when.test(ctx))
 		{
+			if (!ctx.isSpeculating())
+			{
+				failures = null;
+			}
 			return false;
 		}
 
-		// if any are false, trigger the requirement rule
-		return requirements.values().stream().anyMatch(p -> !p.test(ctx));
+		// if any are false, trigger the requirement rule. cheapest
+		// are checked first - predictions only need the first
+		// failure, but the real state records all of them for
+		// messages, since this rule will be the one shown
+		final var speculating = ctx.isSpeculating();
+		List<String> failed = null;
+		for (final var requirement : requirements)
+		{
+			if (!requirement.holds(ctx))
+			{
+				if (speculating)
+				{
+					return true;
+				}
+
+				if (failed == null)
+				{
+					failed = new ArrayList<>();
+				}
+				failed.add(requirement.error);
+			}
+		}
+
+		if (!speculating)
+		{
+			record(failed);
+		}
+
+		return failed != null;
+	}
+
+	/**
+	 * Keep the failed requirements for messages, re-building
+	 * the messages only if they have changed
+	 */
+	private void record(List<String> failed)
+	{
+		if (failed == null)
+		{
+			failures = null;
+			return;
+		}
+
+		final var previous = failures;
+		if (previous != null && previous.errors.equals(failed))
+		{
+			return;
+		}
+
+		final var lines = new ArrayList<String>();
+		lines.add(TextColor.DANGER + "Failed requirements:");
+		for (final var error : failed)
+		{
+			lines.add(TextColor.DANGER + "- " + error);
+		}
+
+		failures = new Failures(failed, List.copyOf(lines));
 	}
 
 	@Override
 	public List<String> messages(TContext ctx)
 	{
-		final var messages = new ArrayList<String>();
-		messages.add(TextColor.DANGER + "Failed requirements:");
-		for (final var entry : requirements.entrySet())
+		var recorded = failures;
+		if (recorded == null)
+		{
+			// not checked against the real state yet
+			passes(ctx);
+			recorded = failures;
+		}
+
+		return recorded != null ? recorded.messages : null;
+	}
+
+	private static final class Requirement<TContext extends CoreContext>
+	{
+		private final String error;
+		private final CostClass cost;
+		private final Predicate<TContext> predicate;
+		private final int mask;
+
+		/**
+		 * Last result, with the stamp of the domains this requirement
+		 * reads when it was checked. Replaced as a whole, so the two
+		 * can't be torn between threads.
+		 */
+		private volatile Checked checked;
+
+		private Requirement(String error, CostClass cost, Predicate<TContext> predicate, int mask)
 		{
-			if (!entry.getValue().test(ctx))
+			this.error = error;
+			this.cost = cost;
+			this.predicate = predicate;
+			this.mask = mask;
+		}
+
+		private boolean holds(TContext ctx)
+		{
+			final var stamp = mask == StateDomain.ALL ? -1 : ctx.getStamp(mask);
+			final var previous = checked;
+			if (stamp != -1 && previous != null && previous.stamp == stamp)
 			{
-				messages.add(TextColor.DANGER + "- " + entry.getKey());
+				return previous.result;
 			}
+
+			final var result = predicate.test(ctx);
+			if (stamp != -1)
+			{
+				checked = new Checked(stamp, result);
+			}
+
+			return result;
 		}
+	}
 
-		return messages;
+	@AllArgsConstructor
+	private static final class Checked
+	{
+		private final long stamp;
+		private final boolean result;
+	}
+
+	@AllArgsConstructor
+	private static final class Failures
+	{
+		private final List<String> errors;
+		private final List<String> messages;
+	}
+
+	/**
+	 * Which required item IDs were found in each container
+	 */
+	@AllArgsConstructor
+	private static final class ItemPresence
+	{
+		private final long stamp;
+		private final BitSet inventory;
+		private final BitSet bank;
+		private final BitSet equipment;
 	}
 }
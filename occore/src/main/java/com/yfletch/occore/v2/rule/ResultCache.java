@@ -0,0 +1,107 @@
+package com.yfletch.occore.v2.rule;
+
+import com.yfletch.occore.v2.CoreContext;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import lombok.AllArgsConstructor;
+
+/**
+ * Memoizes the results of a rule's functions for a number of game
+ * ticks, and/or until one of a set of state domains changes.
+ * Results are never cached against a predicted state.
+ */
+final class ResultCache<TContext extends CoreContext>
+{
+	/**
+	 * Amount of ticks results are kept for, or 0 for no limit
+	 */
+	private int ticks = 0;
+
+	/**
+	 * Domains that invalidate results when changed, or 0 for none
+	 */
+	private int mask = 0;
+
+	final Entry when = new Entry();
+	final Entry until = new Entry();
+	final Entry then = new Entry();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	void setTicks(int ticks)
+	{
+		if (ticks < 1)
+		{
+			throw new IllegalArgumentException("Results must be cached for at least 1 tick");
+		}
+
+		this.ticks = ticks;
+		clear();
+	}
+
+	void setMask(int mask)
+	{
+		if (mask == 0)
+		{
+			throw new IllegalArgumentException("At least one state domain is required");
+		}
+
+		this.mask = mask;
+		clear();
+	}
+
+	@SuppressWarnings("unchecked")
+	<R> R get(Entry entry, TContext ctx, Function<TContext, R> function)
+	{
+		if (ctx.isSpeculating())
+		{
+			return function.apply(ctx);
+		}
+
+		final var tick = ctx.getSnapshot().getTick();
+		final var stamp = mask == 0 ? 0 : ctx.getStamp(mask);
+		final var cached = entry.result;
+		if (cached != null && stamp != -1 && cached.stamp == stamp
+			&& (ticks == 0 || tick >= cached.tick && tick - cached.tick < ticks))
+		{
+			hits.incrementAndGet();
+			return (R) cached.value;
+		}
+
+		misses.incrementAndGet();
+		final var value = function.apply(ctx);
+		entry.result = new Result(tick, stamp, value);
+		return value;
+	}
+
+	void clear()
+	{
+		when.result = null;
+		until.result = null;
+		then.result = null;
+	}
+
+	long getHits()
+	{
+		return hits.get();
+	}
+
+	long getMisses()
+	{
+		return misses.get();
+	}
+
+	static final class Entry
+	{
+		private volatile Result result;
+	}
+
+	@AllArgsConstructor
+	private static final class Result
+	{
+		private final int tick;
+		private final long stamp;
+		private final Object value;
+	}
+}
@@ -3,6 +3,7 @@ package com.yfletch.occore.v2.rule;
 import com.yfletch.occore.v2.CoreContext;
 import com.yfletch.occore.v2.interaction.DeferredInteraction;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Predicate;
 
 public interface Rule<TContext extends CoreContext>
@@ -99,6 +100,28 @@ public interface Rule<TContext extends CoreContext>
 		return c -> true;
 	}
 
+	/**
+	 * State domains this rule reads from (when, until, and the
+	 * interaction itself if it affects whether the rule passes).
+	 * <p>
+	 * If declared, the runner will re-use the previous result of
+	 * this rule until one of these domains changes. Return null
+	 * if unknown - the rule will then be checked on every pass.
+	 */
+	default Set<StateDomain> reads()
+	{
+		return null;
+	}
+
+	/**
+	 * How expensive this rule is to check. Used to decide which
+	 * checks to defer when a resolution pass is short on time.
+	 */
+	default CostClass cost()
+	{
+		return CostClass.NORMAL;
+	}
+
 	default boolean canExecute()
 	{
 		return true;
@@ -0,0 +1,125 @@
+package com.yfletch.occore.v2.rule;
+
+import com.yfletch.occore.v2.CoreContext;
+import java.util.function.Predicate;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A contiguous block of rules that only apply when the group's predicate
+ * passes. The predicate is checked once per resolution pass, and if it
+ * fails the runner skips every rule in the group (including nested groups).
+ */
+public class RuleGroup<TContext extends CoreContext>
+{
+	@Getter
+	private final String name;
+
+	private final Predicate<TContext> when;
+
+	@Getter
+	private final RuleGroup<TContext> parent;
+
+	/**
+	 * Index of the first rule in this group
+	 */
+	@Getter
+	private int start;
+
+	/**
+	 * Index after the last rule in this group
+	 */
+	@Getter
+	@Setter
+	private int end;
+
+	/**
+	 * Result of the most recent check, replaced as a whole so a
+	 * thread checking in another pass can't tear it
+	 */
+	private volatile Checked checked;
+
+	public RuleGroup(String name, Predicate<TContext> when, RuleGroup<TContext> parent, int start)
+	{
+		this.name = name;
+		this.when = when;
+		this.parent = parent;
+		this.start = start;
+		this.end = start;
+	}
+
+	/**
+	 * Whether this group and all of its parents pass. Only
+	 * evaluated once per resolution pass.
+	 */
+	public boolean passes(TContext ctx)
+	{
+		final var pass = ctx.getResolutionPass();
+		final var previous = checked;
+		if (previous != null && previous.pass == pass)
+		{
+			return previous.result;
+		}
+
+		final var result = (parent == null || parent.passes(ctx))
+			&& (when == null || when.test(ctx));
+		checked = new Checked(pass, result);
+		return result;
+	}
+
+	/**
+	 * Get the outermost group that failed in the current pass, so
+	 * the runner can skip all of its rules at once
+	 */
+	public RuleGroup<TContext> getOutermostFailure(TContext ctx)
+	{
+		if (parent != null && !parent.passes(ctx))
+		{
+			return parent.getOutermostFailure(ctx);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Result of this group in the most recent pass it was
+	 * checked in, for debugging. Null if never checked.
+	 */
+	public Boolean getLastResult()
+	{
+		final var previous = checked;
+		return previous == null ? null : previous.result;
+	}
+
+	/**
+	 * Whether this group was checked in the given pass
+	 */
+	public boolean wasCheckedIn(long pass)
+	{
+		final var previous = checked;
+		return previous != null && previous.pass == pass;
+	}
+
+	/**
+	 * Move this group after rules before it were added
+	 * or removed
+	 */
+	public void shift(int delta)
+	{
+		start += delta;
+		end += delta;
+	}
+
+	public int getDepth()
+	{
+		return parent == null ? 0 : parent.getDepth() + 1;
+	}
+
+	@AllArgsConstructor
+	private static final class Checked
+	{
+		private final long pass;
+		private final boolean result;
+	}
+}
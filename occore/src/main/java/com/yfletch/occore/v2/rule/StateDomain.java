@@ -0,0 +1,75 @@
+package com.yfletch.occore.v2.rule;
+
+import java.util.Collection;
+
+/**
+ * Parts of the game state a rule can read from. Rules that declare
+ * which domains they read will only be re-checked by the runner
+ * when one of those domains has changed.
+ */
+public enum StateDomain
+{
+	INVENTORY,
+	BANK,
+	EQUIPMENT,
+	/**
+	 * Local player location
+	 */
+	LOCATION,
+	WIDGETS,
+	/**
+	 * NPC spawns, despawns and changes. NPC movement is not tracked.
+	 */
+	NPCS,
+	OBJECTS,
+	VARBITS,
+	/**
+	 * Flags and args stored in the rule context
+	 */
+	CONTEXT;
+
+	/**
+	 * Mask that represents every domain - used for rules
+	 * that don't (or can't) declare their dependencies.
+	 */
+	public static final int ALL = (1 << values().length) - 1;
+
+	/**
+	 * Domains held in the world snapshot. Rules read these from the
+	 * snapshot instead of the live client, so results are cached
+	 * against their versions at the time the snapshot was captured.
+	 */
+	public static final int SNAPSHOT = mask(INVENTORY, BANK, EQUIPMENT, LOCATION, WIDGETS, VARBITS);
+
+	public int bit()
+	{
+		return 1 << ordinal();
+	}
+
+	public static int mask(StateDomain... domains)
+	{
+		var mask = 0;
+		for (final var domain : domains)
+		{
+			mask |= domain.bit();
+		}
+
+		return mask;
+	}
+
+	public static int mask(Collection<StateDomain> domains)
+	{
+		if (domains == null)
+		{
+			return ALL;
+		}
+
+		var mask = 0;
+		for (final var domain : domains)
+		{
+			mask |= domain.bit();
+		}
+
+		return mask;
+	}
+}
@@ -0,0 +1,317 @@
+package com.yfletch.occore.v2.scene;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.runelite.api.GameState;
+import net.runelite.api.NPC;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.NpcChanged;
+import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.client.eventbus.Subscribe;
+
+/**
+ * Index of the NPCs around the player by ID, name and location, kept
+ * up to date from spawn, despawn and change events, and moved between
+ * grid cells once per tick. Radius and nearest lookups only touch
+ * nearby cells, instead of every NPC.
+ */
+public class NpcIndex extends SharedIndex
+{
+	private static final int CELL_SIZE = 8;
+
+	@Getter
+	private static final NpcIndex shared = new NpcIndex();
+
+	private final Map<NPC, Entry> entries = new HashMap<>();
+	private final Map<Integer, List<NPC>> byId = new HashMap<>();
+	private final Map<String, List<NPC>> byName = new HashMap<>();
+	private final SpatialGrid<NPC> grid = new SpatialGrid<>(CELL_SIZE, npc -> entries.get(npc).location);
+
+	public synchronized int getSize()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * All NPCs with any of the IDs
+	 */
+	public synchronized List<NPC> byId(int... ids)
+	{
+		final var results = new ArrayList<NPC>();
+		for (final var id : ids)
+		{
+			final var bucket = byId.get(id);
+			if (bucket != null)
+			{
+				results.addAll(bucket);
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * All NPCs with any of the names (case and tags ignored)
+	 */
+	public synchronized List<NPC> byName(String... names)
+	{
+		final var results = new ArrayList<NPC>();
+		for (final var name : names)
+		{
+			final var bucket = byName.get(normalize(name));
+			if (bucket != null)
+			{
+				results.addAll(bucket);
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * NPCs within a radius of a point, on the same plane
+	 */
+	public synchronized List<NPC> within(WorldPoint point, int radius, Predicate<NPC> predicate)
+	{
+		return grid.within(point, radius, predicate);
+	}
+
+	/**
+	 * Up to n NPCs matching the predicate nearest to
+	 * a point on the same plane, closest first
+	 */
+	public synchronized List<NPC> nearest(WorldPoint point, int n, Predicate<NPC> predicate)
+	{
+		return grid.nearest(point, n, predicate);
+	}
+
+	/**
+	 * Nearest NPC to a point with any of the IDs,
+	 * or null if there isn't one on the same plane
+	 */
+	public NPC nearest(WorldPoint point, int... ids)
+	{
+		final var results = nearest(point, 1, npc -> hasId(npc, ids));
+		return results.isEmpty() ? null : results.get(0);
+	}
+
+	/**
+	 * Nearest NPC to the local player matching the predicate,
+	 * or null if there isn't one on the player's plane
+	 */
+	public NPC nearest(Predicate<NPC> predicate)
+	{
+		final var from = getPlayerLocation();
+		if (from == null)
+		{
+			return null;
+		}
+
+		final var results = nearest(from, 1, predicate);
+		return results.isEmpty() ? null : results.get(0);
+	}
+
+	/**
+	 * Nearest NPC to the local player with any of the IDs
+	 */
+	public synchronized NPC nearest(int... ids)
+	{
+		return nearestTo(byId(ids));
+	}
+
+	/**
+	 * Nearest NPC to the local player with any of the
+	 * names (case and tags ignored)
+	 */
+	public synchronized NPC nearestNamed(String... names)
+	{
+		return nearestTo(byName(names));
+	}
+
+	/**
+	 * Nearest of the NPCs by their tracked location, the same
+	 * as radius and nearest lookups use
+	 */
+	private NPC nearestTo(Collection<NPC> npcs)
+	{
+		final var from = getPlayerLocation();
+		if (from == null)
+		{
+			return null;
+		}
+
+		return npcs.stream()
+			.min(Comparator.comparingInt(npc -> entries.get(npc).location.distanceTo(from)))
+			.orElse(null);
+	}
+
+	private boolean hasId(NPC npc, int... ids)
+	{
+		final var id = entries.get(npc).id;
+		for (final var candidate : ids)
+		{
+			if (candidate == id)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private void add(NPC npc)
+	{
+		if (npc == null || entries.containsKey(npc))
+		{
+			return;
+		}
+
+		final var entry = new Entry(npc.getWorldLocation(), npc.getId(), normalize(npc.getName()));
+		entries.put(npc, entry);
+		byId.computeIfAbsent(entry.id, key -> new ArrayList<>()).add(npc);
+		byName.computeIfAbsent(entry.name, key -> new ArrayList<>()).add(npc);
+		grid.add(npc, entry.location);
+	}
+
+	private void remove(NPC npc)
+	{
+		final var entry = entries.get(npc);
+		if (entry == null)
+		{
+			return;
+		}
+
+		grid.remove(npc, entry.location);
+		removeFrom(byId, entry.id, npc);
+		removeFrom(byName, entry.name, npc);
+		entries.remove(npc);
+	}
+
+	/**
+	 * Move an NPC between ID and name buckets if
+	 * its definition has changed
+	 */
+	private void update(NPC npc, Entry entry)
+	{
+		final var id = npc.getId();
+		if (id != entry.id)
+		{
+			removeFrom(byId, entry.id, npc);
+			entry.id = id;
+			byId.computeIfAbsent(id, key -> new ArrayList<>()).add(npc);
+		}
+
+		final var name = normalize(npc.getName());
+		if (!name.equals(entry.name))
+		{
+			removeFrom(byName, entry.name, npc);
+			entry.name = name;
+			byName.computeIfAbsent(name, key -> new ArrayList<>()).add(npc);
+		}
+	}
+
+	private static <K> void removeFrom(Map<K, List<NPC>> buckets, K key, NPC npc)
+	{
+		final var bucket = buckets.get(key);
+		if (bucket != null && bucket.remove(npc) && bucket.isEmpty())
+		{
+			buckets.remove(key);
+		}
+	}
+
+	@Override
+	protected synchronized void clear()
+	{
+		entries.clear();
+		byId.clear();
+		byName.clear();
+		grid.clear();
+	}
+
+	@Override
+	protected synchronized void rebuild()
+	{
+		clear();
+		if (client == null || client.getGameState() != GameState.LOGGED_IN)
+		{
+			return;
+		}
+
+		for (final var npc : client.getNpcs())
+		{
+			add(npc);
+		}
+	}
+
+	/**
+	 * Move NPCs to their new cells before anything else
+	 * queries the index this tick. Definition changes are
+	 * handled by onNpcChanged.
+	 */
+	@Subscribe(priority = 1)
+	public synchronized void onGameTick(GameTick event)
+	{
+		for (final var tracked : entries.entrySet())
+		{
+			final var npc = tracked.getKey();
+			final var entry = tracked.getValue();
+			final var location = npc.getWorldLocation();
+			if (!location.equals(entry.location))
+			{
+				grid.move(npc, entry.location, location);
+				entry.location = location;
+			}
+		}
+	}
+
+	@Subscribe
+	public synchronized void onGameStateChanged(GameStateChanged event)
+	{
+		// NPCs are spawned again after logging in or hopping
+		if (event.getGameState() == GameState.LOGIN_SCREEN
+			|| event.getGameState() == GameState.HOPPING)
+		{
+			clear();
+		}
+	}
+
+	@Subscribe
+	public synchronized void onNpcSpawned(NpcSpawned event)
+	{
+		add(event.getNpc());
+	}
+
+	@Subscribe
+	public synchronized void onNpcDespawned(NpcDespawned event)
+	{
+		remove(event.getNpc());
+	}
+
+	@Subscribe
+	public synchronized void onNpcChanged(NpcChanged event)
+	{
+		final var entry = entries.get(event.getNpc());
+		if (entry != null)
+		{
+			update(event.getNpc(), entry);
+		}
+	}
+
+	@AllArgsConstructor
+	private static final class Entry
+	{
+		private WorldPoint location;
+		private int id;
+		private String name;
+	}
+}
@@ -0,0 +1,365 @@
+package com.yfletch.occore.v2.scene;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import net.runelite.api.GameObject;
+import net.runelite.api.GameState;
+import net.runelite.api.Tile;
+import net.runelite.api.TileObject;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.DecorativeObjectDespawned;
+import net.runelite.api.events.DecorativeObjectSpawned;
+import net.runelite.api.events.GameObjectDespawned;
+import net.runelite.api.events.GameObjectSpawned;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GroundObjectDespawned;
+import net.runelite.api.events.GroundObjectSpawned;
+import net.runelite.api.events.WallObjectDespawned;
+import net.runelite.api.events.WallObjectSpawned;
+import net.runelite.client.eventbus.Subscribe;
+
+/**
+ * Index of the objects in the current scene by ID, name and location,
+ * kept up to date from spawn and despawn events. Lookups only touch
+ * matching objects (or nearby cells), instead of every scene tile.
+ */
+public class SceneObjectIndex extends SharedIndex
+{
+	private static final int CELL_SIZE = 8;
+
+	/**
+	 * Furthest an object's tiles can be from its
+	 * world location (for large game objects)
+	 */
+	private static final int MAX_OBJECT_RADIUS = 5;
+
+	@Getter
+	private static final SceneObjectIndex shared = new SceneObjectIndex();
+
+	private final Map<Integer, List<TileObject>> byId = new HashMap<>();
+	private final Map<String, List<TileObject>> byName = new HashMap<>();
+	private final SpatialGrid<TileObject> grid = new SpatialGrid<>(CELL_SIZE, TileObject::getWorldLocation);
+
+	/**
+	 * Objects that can change into other objects (e.g. through varbits)
+	 * without a spawn event, so can't be bucketed by name
+	 */
+	private final List<TileObject> transforming = new ArrayList<>();
+
+	@Getter
+	private int size = 0;
+
+	/**
+	 * All objects with any of the IDs
+	 */
+	public synchronized List<TileObject> byId(int... ids)
+	{
+		final var results = new ArrayList<TileObject>();
+		for (final var id : ids)
+		{
+			final var bucket = byId.get(id);
+			if (bucket != null)
+			{
+				results.addAll(bucket);
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * All objects with any of the names (case and tags ignored)
+	 */
+	public synchronized List<TileObject> byName(String... names)
+	{
+		final var results = new ArrayList<TileObject>();
+		for (final var name : names)
+		{
+			final var bucket = byName.get(normalize(name));
+			if (bucket != null)
+			{
+				results.addAll(bucket);
+			}
+		}
+
+		if (!transforming.isEmpty())
+		{
+			final var normalized = Arrays.stream(names).map(SceneObjectIndex::normalize).collect(Collectors.toSet());
+			for (final var object : transforming)
+			{
+				if (normalized.contains(normalize(object.getName())))
+				{
+					results.add(object);
+				}
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * All objects on a tile, including large objects
+	 * that span over it
+	 */
+	public synchronized List<TileObject> at(WorldPoint point)
+	{
+		if (client == null)
+		{
+			return new ArrayList<>();
+		}
+
+		final var local = LocalPoint.fromWorld(client, point);
+		return grid.within(point, MAX_OBJECT_RADIUS, object -> covers(object, point, local));
+	}
+
+	/**
+	 * Objects within a radius of a point, on the same plane
+	 */
+	public synchronized List<TileObject> within(WorldPoint point, int radius, Predicate<TileObject> predicate)
+	{
+		return grid.within(point, radius, predicate);
+	}
+
+	/**
+	 * Up to n objects matching the predicate nearest to
+	 * a point on the same plane, closest first
+	 */
+	public synchronized List<TileObject> nearest(WorldPoint point, int n, Predicate<TileObject> predicate)
+	{
+		return grid.nearest(point, n, predicate);
+	}
+
+	/**
+	 * Nearest object to the local player matching the predicate,
+	 * or null if there isn't one on the player's plane
+	 */
+	public TileObject nearest(Predicate<TileObject> predicate)
+	{
+		final var from = getPlayerLocation();
+		if (from == null)
+		{
+			return null;
+		}
+
+		final var results = nearest(from, 1, predicate);
+		return results.isEmpty() ? null : results.get(0);
+	}
+
+	/**
+	 * Nearest object to the local player with any of the IDs
+	 */
+	public TileObject nearest(int... ids)
+	{
+		return nearestTo(byId(ids));
+	}
+
+	/**
+	 * Nearest object to the local player with any of the
+	 * names (case and tags ignored)
+	 */
+	public TileObject nearestNamed(String... names)
+	{
+		return nearestTo(byName(names));
+	}
+
+	private TileObject nearestTo(Collection<TileObject> objects)
+	{
+		final var from = getPlayerLocation();
+		if (from == null)
+		{
+			return null;
+		}
+
+		return objects.stream()
+			.min(Comparator.comparingInt(object -> object.getWorldLocation().distanceTo(from)))
+			.orElse(null);
+	}
+
+	private static boolean covers(TileObject object, WorldPoint point, LocalPoint local)
+	{
+		if (object instanceof GameObject && local != null)
+		{
+			final var gameObject = (GameObject) object;
+			final var min = gameObject.getSceneMinLocation();
+			final var max = gameObject.getSceneMaxLocation();
+			return gameObject.getPlane() == point.getPlane()
+				&& local.getSceneX() >= min.getX() && local.getSceneX() <= max.getX()
+				&& local.getSceneY() >= min.getY() && local.getSceneY() <= max.getY();
+		}
+
+		return object.getWorldLocation().equals(point);
+	}
+
+	private void add(TileObject object)
+	{
+		if (object == null)
+		{
+			return;
+		}
+
+		byId.computeIfAbsent(object.getId(), key -> new ArrayList<>()).add(object);
+		if (isTransforming(object))
+		{
+			transforming.add(object);
+		}
+		else
+		{
+			byName.computeIfAbsent(normalize(object.getName()), key -> new ArrayList<>()).add(object);
+		}
+
+		grid.add(object, object.getWorldLocation());
+		size++;
+	}
+
+	private void remove(TileObject object)
+	{
+		if (object == null || !grid.remove(object, object.getWorldLocation()))
+		{
+			return;
+		}
+
+		removeFrom(byId, object.getId(), object);
+		if (!transforming.remove(object))
+		{
+			removeFrom(byName, normalize(object.getName()), object);
+		}
+
+		size--;
+	}
+
+	private static <K> void removeFrom(Map<K, List<TileObject>> buckets, K key, TileObject object)
+	{
+		final var bucket = buckets.get(key);
+		if (bucket != null && bucket.remove(object) && bucket.isEmpty())
+		{
+			buckets.remove(key);
+		}
+	}
+
+	private boolean isTransforming(TileObject object)
+	{
+		final var definition = client != null ? client.getObjectDefinition(object.getId()) : null;
+		return definition != null && definition.getImpostorIds() != null;
+	}
+
+	@Override
+	protected synchronized void clear()
+	{
+		byId.clear();
+		byName.clear();
+		transforming.clear();
+		grid.clear();
+		size = 0;
+	}
+
+	@Override
+	protected synchronized void rebuild()
+	{
+		clear();
+		if (client == null || client.getGameState() != GameState.LOGGED_IN)
+		{
+			return;
+		}
+
+		for (final var plane : client.getScene().getTiles())
+		{
+			for (final var row : plane)
+			{
+				for (final var tile : row)
+				{
+					if (tile != null)
+					{
+						addTile(tile);
+					}
+				}
+			}
+		}
+	}
+
+	private void addTile(Tile tile)
+	{
+		final var gameObjects = tile.getGameObjects();
+		if (gameObjects != null)
+		{
+			for (final var gameObject : gameObjects)
+			{
+				// large objects are on every tile they span, only add them once
+				if (gameObject != null && gameObject.getSceneMinLocation().equals(tile.getSceneLocation()))
+				{
+					add(gameObject);
+				}
+			}
+		}
+
+		add(tile.getWallObject());
+		add(tile.getDecorativeObject());
+		add(tile.getGroundObject());
+	}
+
+	@Subscribe
+	public synchronized void onGameStateChanged(GameStateChanged event)
+	{
+		// objects are spawned again once the new scene has loaded
+		if (event.getGameState() != GameState.LOGGED_IN)
+		{
+			clear();
+		}
+	}
+
+	@Subscribe
+	public synchronized void onGameObjectSpawned(GameObjectSpawned event)
+	{
+		add(event.getGameObject());
+	}
+
+	@Subscribe
+	public synchronized void onGameObjectDespawned(GameObjectDespawned event)
+	{
+		remove(event.getGameObject());
+	}
+
+	@Subscribe
+	public synchronized void onWallObjectSpawned(WallObjectSpawned event)
+	{
+		add(event.getWallObject());
+	}
+
+	@Subscribe
+	public synchronized void onWallObjectDespawned(WallObjectDespawned event)
+	{
+		remove(event.getWallObject());
+	}
+
+	@Subscribe
+	public synchronized void onDecorativeObjectSpawned(DecorativeObjectSpawned event)
+	{
+		add(event.getDecorativeObject());
+	}
+
+	@Subscribe
+	public synchronized void onDecorativeObjectDespawned(DecorativeObjectDespawned event)
+	{
+		remove(event.getDecorativeObject());
+	}
+
+	@Subscribe
+	public synchronized void onGroundObjectSpawned(GroundObjectSpawned event)
+	{
+		add(event.getGroundObject());
+	}
+
+	@Subscribe
+	public synchronized void onGroundObjectDespawned(GroundObjectDespawned event)
+	{
+		remove(event.getGroundObject());
+	}
+}
@@ -0,0 +1,79 @@
+package com.yfletch.occore.v2.scene;
+
+import net.runelite.api.Client;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.util.Text;
+import net.unethicalite.client.Static;
+
+/**
+ * Base for indexes shared between all running plugins - each attaches
+ * on start up and detaches on shut down, and the index listens for
+ * events while at least one is attached.
+ */
+abstract class SharedIndex
+{
+	protected Client client;
+	private int users = 0;
+
+	/**
+	 * Start keeping this index up to date, if it isn't already.
+	 * Entities already in the scene are indexed on the client thread.
+	 */
+	public synchronized void attach(EventBus eventBus, Client client)
+	{
+		if (users++ > 0)
+		{
+			return;
+		}
+
+		this.client = client;
+		eventBus.register(this);
+		Static.getClientThread().invokeLater(this::rebuild);
+	}
+
+	/**
+	 * Stop keeping this index up to date, once every
+	 * plugin using it has detached
+	 */
+	public synchronized void detach(EventBus eventBus)
+	{
+		if (users == 0 || --users > 0)
+		{
+			return;
+		}
+
+		eventBus.unregister(this);
+		clear();
+		client = null;
+	}
+
+	public synchronized boolean isAttached()
+	{
+		return users > 0;
+	}
+
+	/**
+	 * Normalize an entity name for lookups - tags removed
+	 * and lowercase
+	 */
+	public static String normalize(String name)
+	{
+		return name == null ? "" : Text.removeTags(name).toLowerCase();
+	}
+
+	protected WorldPoint getPlayerLocation()
+	{
+		final var client = this.client;
+		final var player = client != null ? client.getLocalPlayer() : null;
+		return player != null ? player.getWorldLocation() : null;
+	}
+
+	/**
+	 * Re-index everything currently in the scene. Called
+	 * on the client thread.
+	 */
+	protected abstract void rebuild();
+
+	protected abstract void clear();
+}
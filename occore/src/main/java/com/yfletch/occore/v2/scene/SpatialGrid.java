@@ -0,0 +1,185 @@
+package com.yfletch.occore.v2.scene;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import net.runelite.api.Constants;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Buckets entries into square cells of world tiles, so tile, radius
+ * and nearest queries only look at entries in nearby cells.
+ * <p>
+ * Not thread-safe - owners are expected to synchronize access.
+ */
+class SpatialGrid<T>
+{
+	private final int cellSize;
+	private final Function<T, WorldPoint> location;
+	private final Map<Long, List<T>> cells = new HashMap<>();
+
+	SpatialGrid(int cellSize, Function<T, WorldPoint> location)
+	{
+		if (cellSize < 1)
+		{
+			throw new IllegalArgumentException("Cell size must be at least 1");
+		}
+
+		this.cellSize = cellSize;
+		this.location = location;
+	}
+
+	private long key(int x, int y, int plane)
+	{
+		return (long) plane << 40
+			| (long) Math.floorDiv(x, cellSize) << 20
+			| Math.floorDiv(y, cellSize);
+	}
+
+	private long key(WorldPoint point)
+	{
+		return key(point.getX(), point.getY(), point.getPlane());
+	}
+
+	void add(T entry, WorldPoint point)
+	{
+		cells.computeIfAbsent(key(point), k -> new ArrayList<>()).add(entry);
+	}
+
+	/**
+	 * Remove an entry from the cell containing the point it
+	 * was added at
+	 */
+	boolean remove(T entry, WorldPoint point)
+	{
+		final var key = key(point);
+		final var cell = cells.get(key);
+		if (cell == null || !cell.remove(entry))
+		{
+			return false;
+		}
+
+		if (cell.isEmpty())
+		{
+			cells.remove(key);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Move an entry between cells, if its cell has changed
+	 */
+	void move(T entry, WorldPoint from, WorldPoint to)
+	{
+		if (key(from) != key(to) && remove(entry, from))
+		{
+			add(entry, to);
+		}
+	}
+
+	/**
+	 * Entries within a (chebyshev) radius of the point,
+	 * on the same plane
+	 */
+	List<T> within(WorldPoint from, int radius, Predicate<? super T> predicate)
+	{
+		final var results = new ArrayList<T>();
+		final var minX = Math.floorDiv(from.getX() - radius, cellSize);
+		final var maxX = Math.floorDiv(from.getX() + radius, cellSize);
+		final var minY = Math.floorDiv(from.getY() - radius, cellSize);
+		final var maxY = Math.floorDiv(from.getY() + radius, cellSize);
+
+		for (var x = minX; x <= maxX; x++)
+		{
+			for (var y = minY; y <= maxY; y++)
+			{
+				final var cell = cells.get(key(x * cellSize, y * cellSize, from.getPlane()));
+				if (cell == null)
+				{
+					continue;
+				}
+
+				for (final var entry : cell)
+				{
+					if (location.apply(entry).distanceTo(from) <= radius && predicate.test(entry))
+					{
+						results.add(entry);
+					}
+				}
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Up to n entries nearest to the point, on the same plane, closest
+	 * first. Searches outwards one ring of cells at a time, stopping
+	 * once no further ring can contain anything closer.
+	 */
+	List<T> nearest(WorldPoint from, int n, Predicate<? super T> predicate)
+	{
+		final var found = new ArrayList<T>();
+		if (n <= 0)
+		{
+			return found;
+		}
+
+		final Comparator<T> byDistance = Comparator.comparingInt(e -> location.apply(e).distanceTo(from));
+		final var cx = Math.floorDiv(from.getX(), cellSize);
+		final var cy = Math.floorDiv(from.getY(), cellSize);
+		final var maxRing = Constants.SCENE_SIZE / cellSize + 1;
+
+		for (var ring = 0; ring <= maxRing; ring++)
+		{
+			for (var x = cx - ring; x <= cx + ring; x++)
+			{
+				for (var y = cy - ring; y <= cy + ring; y++)
+				{
+					// only the outer edge of the ring, inner cells have been searched
+					if (Math.abs(x - cx) != ring && Math.abs(y - cy) != ring)
+					{
+						continue;
+					}
+
+					final var cell = cells.get(key(x * cellSize, y * cellSize, from.getPlane()));
+					if (cell == null)
+					{
+						continue;
+					}
+
+					for (final var entry : cell)
+					{
+						if (predicate.test(entry))
+						{
+							found.add(entry);
+						}
+					}
+				}
+			}
+
+			// anything in the next ring is at least ring * cellSize + 1 tiles away
+			if (found.size() >= n)
+			{
+				found.sort(byDistance);
+				if (location.apply(found.get(n - 1)).distanceTo(from) <= ring * cellSize)
+				{
+					break;
+				}
+			}
+		}
+
+		found.sort(byDistance);
+		return found.size() > n ? new ArrayList<>(found.subList(0, n)) : found;
+	}
+
+	void clear()
+	{
+		cells.clear();
+	}
+}
@@ -0,0 +1,362 @@
+package com.yfletch.occore.v2.snapshot;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.EqualsAndHashCode;
+import net.runelite.api.Client;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+
+/**
+ * Immutable copy of an item container's contents, stored as
+ * primitive arrays. Empty slots are kept (with an ID of -1) so
+ * slot indexes match the real container.
+ */
+@EqualsAndHashCode
+public final class ItemContainerSnapshot
+{
+	public static final ItemContainerSnapshot EMPTY = new ItemContainerSnapshot(new int[0], new int[0]);
+
+	/**
+	 * Item names never change, so they only need to be looked
+	 * up once (on the client thread) per item ID.
+	 */
+	private static final Map<Integer, String> NAMES = new ConcurrentHashMap<>();
+
+	private final int[] ids;
+	private final int[] quantities;
+
+	private ItemContainerSnapshot(int[] ids, int[] quantities)
+	{
+		this.ids = ids;
+		this.quantities = quantities;
+	}
+
+	/**
+	 * Create a snapshot from raw arrays. Arrays are copied.
+	 */
+	public static ItemContainerSnapshot of(int[] ids, int[] quantities)
+	{
+		if (ids.length != quantities.length)
+		{
+			throw new IllegalArgumentException("ids and quantities must be the same length");
+		}
+
+		return new ItemContainerSnapshot(ids.clone(), quantities.clone());
+	}
+
+	/**
+	 * Capture a container. Must be called on the client thread.
+	 */
+	public static ItemContainerSnapshot capture(Client client, InventoryID inventoryId)
+	{
+		final var container = client.getItemContainer(inventoryId);
+		if (container == null)
+		{
+			return EMPTY;
+		}
+
+		final Item[] items = container.getItems();
+		final var ids = new int[items.length];
+		final var quantities = new int[items.length];
+		for (var i = 0; i < items.length; i++)
+		{
+			final var id = items[i].getId();
+			final var quantity = items[i].getQuantity();
+			if (id < 0 || quantity <= 0)
+			{
+				ids[i] = -1;
+				continue;
+			}
+
+			ids[i] = id;
+			quantities[i] = quantity;
+			NAMES.computeIfAbsent(id, key -> client.getItemComposition(key).getName());
+		}
+
+		return new ItemContainerSnapshot(ids, quantities);
+	}
+
+	/**
+	 * Get the (cached) name of an item ID. Only IDs that have been
+	 * captured in a snapshot are known - returns null otherwise.
+	 */
+	public static String getName(int id)
+	{
+		return NAMES.get(id);
+	}
+
+	/**
+	 * Register a known item name, e.g. for headless testing
+	 */
+	public static void registerName(int id, String name)
+	{
+		NAMES.put(id, name);
+	}
+
+	public int size()
+	{
+		return ids.length;
+	}
+
+	public int getId(int slot)
+	{
+		return ids[slot];
+	}
+
+	public int getQuantity(int slot)
+	{
+		return quantities[slot];
+	}
+
+	/**
+	 * Get the first slot containing any of the IDs, or -1
+	 */
+	public int indexOf(int... search)
+	{
+		for (var slot = 0; slot < ids.length; slot++)
+		{
+			for (final var id : search)
+			{
+				if (ids[slot] == id)
+				{
+					return slot;
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Get the first slot containing any of the names, or -1.
+	 * Names are case-sensitive.
+	 */
+	public int indexOf(String... search)
+	{
+		for (var slot = 0; slot < ids.length; slot++)
+		{
+			if (ids[slot] < 0)
+			{
+				continue;
+			}
+
+			final var name = NAMES.get(ids[slot]);
+			for (final var s : search)
+			{
+				if (s.equals(name))
+				{
+					return slot;
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	public boolean contains(int... ids)
+	{
+		return indexOf(ids) != -1;
+	}
+
+	/**
+	 * Names are case-sensitive
+	 */
+	public boolean contains(String... names)
+	{
+		return indexOf(names) != -1;
+	}
+
+	/**
+	 * Count the total quantity of all items matching the IDs
+	 */
+	public int count(int... search)
+	{
+		var count = 0;
+		for (var slot = 0; slot < ids.length; slot++)
+		{
+			for (final var id : search)
+			{
+				if (ids[slot] == id)
+				{
+					count += quantities[slot];
+					break;
+				}
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Count the total quantity of all items matching the names.
+	 * Names are case-sensitive.
+	 */
+	public int count(String... search)
+	{
+		var count = 0;
+		for (var slot = 0; slot < ids.length; slot++)
+		{
+			if (ids[slot] < 0)
+			{
+				continue;
+			}
+
+			final var name = NAMES.get(ids[slot]);
+			for (final var s : search)
+			{
+				if (s.equals(name))
+				{
+					count += quantities[slot];
+					break;
+				}
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Whether the other container holds the same total amount of
+	 * each item, regardless of which slots they're in. The bank
+	 * moves items around as others are added or removed (unless
+	 * placeholders are on), so its layout can't be predicted.
+	 */
+	public boolean hasSameItems(ItemContainerSnapshot other)
+	{
+		final var totals = new HashMap<Integer, Integer>();
+		for (var slot = 0; slot < ids.length; slot++)
+		{
+			if (ids[slot] >= 0)
+			{
+				totals.merge(ids[slot], quantities[slot], Integer::sum);
+			}
+		}
+
+		for (var slot = 0; slot < other.ids.length; slot++)
+		{
+			if (other.ids[slot] >= 0)
+			{
+				totals.merge(other.ids[slot], -other.quantities[slot], Integer::sum);
+			}
+		}
+
+		for (final var difference : totals.values())
+		{
+			if (difference != 0)
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Amount of occupied slots
+	 */
+	public int getUsedSlots()
+	{
+		var used = 0;
+		for (final var id : ids)
+		{
+			if (id >= 0)
+			{
+				used++;
+			}
+		}
+
+		return used;
+	}
+
+	public boolean isEmpty()
+	{
+		return getUsedSlots() == 0;
+	}
+
+	/**
+	 * Copy of this container with an item added, for predicting the
+	 * result of an interaction. Stacking items go onto an existing
+	 * stack (or the first empty slot), others take one empty slot
+	 * each. Items are appended if the container can grow (e.g. the
+	 * bank). Returns null if the items don't fit.
+	 */
+	public ItemContainerSnapshot withAdded(int id, int quantity, boolean stacks, boolean growable)
+	{
+		var newIds = ids.clone();
+		var newQuantities = quantities.clone();
+
+		final var stack = stacks ? indexOf(id) : -1;
+		if (stack != -1)
+		{
+			newQuantities[stack] += quantity;
+			return new ItemContainerSnapshot(newIds, newQuantities);
+		}
+
+		var remaining = stacks ? 1 : quantity;
+		for (var slot = 0; slot < newIds.length && remaining > 0; slot++)
+		{
+			if (newIds[slot] < 0)
+			{
+				newIds[slot] = id;
+				newQuantities[slot] = stacks ? quantity : 1;
+				remaining--;
+			}
+		}
+
+		if (remaining > 0)
+		{
+			if (!growable)
+			{
+				return null;
+			}
+
+			final var size = newIds.length;
+			newIds = Arrays.copyOf(newIds, size + remaining);
+			newQuantities = Arrays.copyOf(newQuantities, size + remaining);
+			for (var slot = size; slot < newIds.length; slot++)
+			{
+				newIds[slot] = id;
+				newQuantities[slot] = stacks ? quantity : 1;
+			}
+		}
+
+		return new ItemContainerSnapshot(newIds, newQuantities);
+	}
+
+	/**
+	 * Copy of this container with an amount of an item removed,
+	 * emptying slots as needed. Returns null if there isn't enough.
+	 */
+	public ItemContainerSnapshot withRemoved(int id, int quantity)
+	{
+		if (count(id) < quantity)
+		{
+			return null;
+		}
+
+		final var newIds = ids.clone();
+		final var newQuantities = quantities.clone();
+
+		var remaining = quantity;
+		for (var slot = 0; slot < newIds.length && remaining > 0; slot++)
+		{
+			if (newIds[slot] != id)
+			{
+				continue;
+			}
+
+			final var taken = Math.min(remaining, newQuantities[slot]);
+			newQuantities[slot] -= taken;
+			remaining -= taken;
+			if (newQuantities[slot] == 0)
+			{
+				newIds[slot] = -1;
+			}
+		}
+
+		return new ItemContainerSnapshot(newIds, newQuantities);
+	}
+}
@@ -0,0 +1,199 @@
+package com.yfletch.occore.v2.snapshot;
+
+import java.util.Arrays;
+import java.util.Objects;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.With;
+import net.runelite.api.Client;
+import net.runelite.api.InventoryID;
+import net.runelite.api.coords.WorldPoint;
+import net.unethicalite.api.items.Bank;
+import net.unethicalite.api.widgets.Dialog;
+
+/**
+ * Immutable copy of the game state that rule predicates commonly
+ * read. Captured once on the client thread per game tick and per
+ * menu click, so predicates running on the resolution thread can
+ * read it without going back into the live client.
+ */
+@Getter
+@AllArgsConstructor
+public final class WorldSnapshot
+{
+	public static final int INVENTORY_SIZE = 28;
+
+	public static final WorldSnapshot EMPTY = new WorldSnapshot(
+		-1,
+		ItemContainerSnapshot.EMPTY,
+		ItemContainerSnapshot.EMPTY,
+		ItemContainerSnapshot.EMPTY,
+		null,
+		-1,
+		false,
+		false,
+		new int[0],
+		new int[0]
+	);
+
+	private final int tick;
+
+	@With
+	private final ItemContainerSnapshot inventory;
+	@With
+	private final ItemContainerSnapshot bank;
+	@With
+	private final ItemContainerSnapshot equipment;
+
+	private final WorldPoint playerLocation;
+	private final int animation;
+
+	@With
+	private final boolean bankOpen;
+	@With
+	private final boolean dialogOpen;
+
+	@Getter(AccessLevel.NONE)
+	private final int[] varbitIds;
+	@Getter(AccessLevel.NONE)
+	private final int[] varbitValues;
+
+	/**
+	 * Capture the current game state. Must be called on the client thread.
+	 *
+	 * @param varbits IDs of varbits to include in the snapshot
+	 */
+	public static WorldSnapshot capture(Client client, int[] varbits)
+	{
+		final var player = client.getLocalPlayer();
+
+		final var values = new int[varbits.length];
+		for (var i = 0; i < varbits.length; i++)
+		{
+			values[i] = client.getVarbitValue(varbits[i]);
+		}
+
+		return new WorldSnapshot(
+			client.getTickCount(),
+			ItemContainerSnapshot.capture(client, InventoryID.INVENTORY),
+			ItemContainerSnapshot.capture(client, InventoryID.BANK),
+			ItemContainerSnapshot.capture(client, InventoryID.EQUIPMENT),
+			player != null ? player.getWorldLocation() : null,
+			player != null ? player.getAnimation() : -1,
+			Bank.isOpen(),
+			Dialog.isOpen(),
+			varbits.clone(),
+			values
+		);
+	}
+
+	/**
+	 * Whether the other snapshot has the same state as this one,
+	 * ignoring the tick it was captured on and the layout of the
+	 * bank. Used to check whether a predicted snapshot came true.
+	 */
+	public boolean matches(WorldSnapshot other)
+	{
+		return other != null
+			&& animation == other.animation
+			&& bankOpen == other.bankOpen
+			&& dialogOpen == other.dialogOpen
+			&& Objects.equals(playerLocation, other.playerLocation)
+			&& inventory.equals(other.inventory)
+			&& bank.hasSameItems(other.bank)
+			&& equipment.equals(other.equipment)
+			&& Arrays.equals(varbitIds, other.varbitIds)
+			&& Arrays.equals(varbitValues, other.varbitValues);
+	}
+
+	public boolean isAnimating()
+	{
+		return animation != -1;
+	}
+
+	public int getFreeInventorySlots()
+	{
+		return INVENTORY_SIZE - inventory.getUsedSlots();
+	}
+
+	public boolean isInventoryFull()
+	{
+		return getFreeInventorySlots() == 0;
+	}
+
+	/**
+	 * Get the value of a varbit. The varbit must have been
+	 * registered for tracking with the runner.
+	 */
+	public int getVarbit(int varbitId)
+	{
+		for (var i = 0; i < varbitIds.length; i++)
+		{
+			if (varbitIds[i] == varbitId)
+			{
+				return varbitValues[i];
+			}
+		}
+
+		throw new IllegalArgumentException("Varbit " + varbitId + " is not tracked in this snapshot");
+	}
+
+	/**
+	 * Amount of varbits in this snapshot
+	 */
+	public int getVarbitCount()
+	{
+		return varbitIds.length;
+	}
+
+	/**
+	 * ID of the varbit at an index, for iterating over all varbits
+	 */
+	public int getVarbitId(int index)
+	{
+		return varbitIds[index];
+	}
+
+	/**
+	 * Value of the varbit at an index, for iterating over all varbits
+	 */
+	public int getVarbitValue(int index)
+	{
+		return varbitValues[index];
+	}
+
+	/**
+	 * Check if any of the items are in the inventory, bank or equipment
+	 */
+	public boolean has(int... ids)
+	{
+		return inventory.contains(ids) || bank.contains(ids) || equipment.contains(ids);
+	}
+
+	/**
+	 * Check if any of the items are in the inventory, bank or equipment.
+	 * Names are case-sensitive.
+	 */
+	public boolean has(String... names)
+	{
+		return inventory.contains(names) || bank.contains(names) || equipment.contains(names);
+	}
+
+	/**
+	 * Check if any of the items are in the inventory or equipment
+	 */
+	public boolean hasOnPerson(int... ids)
+	{
+		return inventory.contains(ids) || equipment.contains(ids);
+	}
+
+	/**
+	 * Check if any of the items are in the inventory or equipment.
+	 * Names are case-sensitive.
+	 */
+	public boolean hasOnPerson(String... names)
+	{
+		return inventory.contains(names) || equipment.contains(names);
+	}
+}
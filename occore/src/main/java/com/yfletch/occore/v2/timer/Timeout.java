@@ -0,0 +1,47 @@
+package com.yfletch.occore.v2.timer;
+
+import lombok.Getter;
+
+/**
+ * Handle to a task scheduled on a {@link TimingWheel}
+ */
+public final class Timeout
+{
+	@Getter
+	private final long deadline;
+
+	final Runnable task;
+
+	/**
+	 * Position in the wheel, while scheduled
+	 */
+	int level = -1;
+	int slot;
+	Timeout prev;
+	Timeout next;
+
+	private final TimingWheel wheel;
+
+	Timeout(TimingWheel wheel, long deadline, Runnable task)
+	{
+		this.wheel = wheel;
+		this.deadline = deadline;
+		this.task = task;
+	}
+
+	/**
+	 * Whether this timeout is still waiting to run
+	 */
+	public boolean isPending()
+	{
+		return level != -1;
+	}
+
+	/**
+	 * Stop the task from running, if it hasn't yet
+	 */
+	public void cancel()
+	{
+		wheel.cancel(this);
+	}
+}
@@ -0,0 +1,65 @@
+package com.yfletch.occore.v2.timer;
+
+import lombok.Getter;
+
+/**
+ * Game tick and millisecond timers, advanced by the context they
+ * belong to. Use these for expiries, cooldowns and plugin timers
+ * instead of decrementing counters every tick.
+ */
+public final class Timers
+{
+	/**
+	 * Wheel in game ticks
+	 */
+	@Getter
+	private final TimingWheel ticks = new TimingWheel();
+
+	/**
+	 * Wheel in epoch milliseconds
+	 */
+	@Getter
+	private final TimingWheel millis = new TimingWheel(System.currentTimeMillis());
+
+	/**
+	 * Current game tick, counted from when these timers were created
+	 */
+	public long getTick()
+	{
+		return ticks.now();
+	}
+
+	/**
+	 * Run a task after an amount of game ticks
+	 */
+	public Timeout afterTicks(int amount, Runnable task)
+	{
+		return ticks.scheduleIn(amount, task);
+	}
+
+	/**
+	 * Run a task after an amount of milliseconds. These are only
+	 * checked on game ticks and clicks, so will run slightly late.
+	 */
+	public Timeout afterMillis(long amount, Runnable task)
+	{
+		return millis.schedule(System.currentTimeMillis() + amount, task);
+	}
+
+	/**
+	 * Move to the next game tick, running everything due
+	 */
+	public void tick()
+	{
+		ticks.advance(ticks.now() + 1);
+		poll();
+	}
+
+	/**
+	 * Run millisecond timers that are due
+	 */
+	public void poll()
+	{
+		millis.advance(System.currentTimeMillis());
+	}
+}
@@ -0,0 +1,251 @@
+package com.yfletch.occore.v2.timer;
+
+import java.util.ArrayList;
+
+/**
+ * Hierarchical timing wheel. Tasks are scheduled at a deadline in
+ * whole units (ticks, milliseconds, ...) with O(1) insert and cancel,
+ * and advancing only touches the slots that are due, so nothing is
+ * swept every unit.
+ * <p>
+ * Each of the four levels has 64 slots, covering 64^4 units before
+ * far-off tasks have to be re-filed.
+ */
+public final class TimingWheel
+{
+	private static final int BITS = 6;
+	private static final int SLOTS = 1 << BITS;
+	private static final int MASK = SLOTS - 1;
+	private static final int LEVELS = 4;
+	private static final long SPAN = 1L << (BITS * LEVELS);
+
+	private final Timeout[][] slots = new Timeout[LEVELS][SLOTS];
+
+	/**
+	 * Which slots of each level have tasks in them
+	 */
+	private final long[] occupied = new long[LEVELS];
+
+	/**
+	 * Current time. Every task with a deadline at or
+	 * before this has been run.
+	 */
+	private long now;
+
+	private int size = 0;
+
+	public TimingWheel()
+	{
+		this(0);
+	}
+
+	public TimingWheel(long start)
+	{
+		now = start;
+	}
+
+	public synchronized long now()
+	{
+		return now;
+	}
+
+	public synchronized int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Run the task once the wheel reaches the deadline. Deadlines
+	 * that have already passed run on the next advance.
+	 */
+	public synchronized Timeout schedule(long deadline, Runnable task)
+	{
+		final var timeout = new Timeout(this, Math.max(deadline, now + 1), task);
+		file(timeout);
+		size++;
+		return timeout;
+	}
+
+	/**
+	 * Run the task after a delay, in units from now
+	 */
+	public synchronized Timeout scheduleIn(long delay, Runnable task)
+	{
+		return schedule(now + delay, task);
+	}
+
+	synchronized void cancel(Timeout timeout)
+	{
+		if (timeout.level != -1)
+		{
+			unlink(timeout);
+			size--;
+		}
+	}
+
+	/**
+	 * Move the wheel forward to a time, running every task that
+	 * is due, in deadline order. Tasks run outside the wheel's
+	 * lock, so they can schedule or cancel other tasks.
+	 */
+	public void advance(long target)
+	{
+		ArrayList<Timeout> due = null;
+		synchronized (this)
+		{
+			while (now < target)
+			{
+				if (size == 0)
+				{
+					now = target;
+					break;
+				}
+
+				// jump straight to the next occupied slot,
+				// or to where the first level wraps around
+				final var offset = (int) (now & MASK);
+				final var ahead = offset == MASK ? 0 : occupied[0] & (-1L << (offset + 1));
+				final var step = ahead != 0
+					? Long.numberOfTrailingZeros(ahead) - offset
+					: SLOTS - offset;
+
+				if (now + step > target)
+				{
+					now = target;
+					break;
+				}
+
+				now += step;
+				final var slot = (int) (now & MASK);
+				if (slot == 0)
+				{
+					cascade();
+				}
+
+				due = collect(slot, due);
+			}
+		}
+
+		if (due != null)
+		{
+			for (final var timeout : due)
+			{
+				timeout.task.run();
+			}
+		}
+	}
+
+	/**
+	 * Move tasks from the higher levels down, once the level
+	 * below has wrapped around
+	 */
+	private void cascade()
+	{
+		for (var level = 1; level < LEVELS; level++)
+		{
+			final var slot = (int) ((now >>> (BITS * level)) & MASK);
+			var timeout = slots[level][slot];
+			slots[level][slot] = null;
+			occupied[level] &= ~(1L << slot);
+
+			while (timeout != null)
+			{
+				final var next = timeout.next;
+				timeout.prev = null;
+				timeout.next = null;
+				file(timeout);
+				timeout = next;
+			}
+
+			if (slot != 0)
+			{
+				break;
+			}
+		}
+	}
+
+	private ArrayList<Timeout> collect(int slot, ArrayList<Timeout> due)
+	{
+		var timeout = slots[0][slot];
+		if (timeout == null)
+		{
+			return due;
+		}
+
+		slots[0][slot] = null;
+		occupied[0] &= ~(1L << slot);
+
+		if (due == null)
+		{
+			due = new ArrayList<>();
+		}
+
+		while (timeout != null)
+		{
+			final var next = timeout.next;
+			timeout.level = -1;
+			timeout.prev = null;
+			timeout.next = null;
+			due.add(timeout);
+			size--;
+			timeout = next;
+		}
+
+		return due;
+	}
+
+	/**
+	 * Put a task in the slot for its deadline, on the lowest level
+	 * that can hold it
+	 */
+	private void file(Timeout timeout)
+	{
+		// tasks past the last level wait in its furthest
+		// slot, and are re-filed when it cascades
+		final var deadline = Math.min(timeout.getDeadline(), now + SPAN - 1);
+		final var delta = deadline - now;
+
+		var level = 0;
+		while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1)))
+		{
+			level++;
+		}
+
+		final var slot = (int) ((deadline >>> (BITS * level)) & MASK);
+		timeout.level = level;
+		timeout.slot = slot;
+		timeout.next = slots[level][slot];
+		if (timeout.next != null)
+		{
+			timeout.next.prev = timeout;
+		}
+
+		slots[level][slot] = timeout;
+		occupied[level] |= 1L << slot;
+	}
+
+	private void unlink(Timeout timeout)
+	{
+		if (timeout.prev != null)
+		{
+			timeout.prev.next = timeout.next;
+		}
+		else
+		{
+			slots[timeout.level][timeout.slot] = timeout.next;
+			if (timeout.next == null)
+			{
+				occupied[timeout.level] &= ~(1L << timeout.slot);
+			}
+		}
+
+		if (timeout.next != null)
+		{
+			timeout.next.prev = timeout.prev;
+		}
+
+		timeout.level = -1;
+		timeout.prev = null;
+		timeout.next = null;
+	}
+}
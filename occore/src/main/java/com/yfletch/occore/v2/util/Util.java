@@ -20,8 +20,24 @@ public class Util
 	 */
 	public static Predicate<String> containing(String... fragments)
 	{
-		return s -> !Strings.isNullOrEmpty(s)
-			&& Arrays.stream(fragments).anyMatch(t -> Text.removeTags(s).toLowerCase().contains(t.toLowerCase()));
+		final var lowerFragments = Arrays.stream(fragments).map(String::toLowerCase).toArray(String[]::new);
+		return s -> {
+			if (Strings.isNullOrEmpty(s))
+			{
+				return false;
+			}
+
+			final var name = Text.removeTags(s).toLowerCase();
+			for (final var fragment : lowerFragments)
+			{
+				if (name.contains(fragment))
+				{
+					return true;
+				}
+			}
+
+			return false;
+		};
 	}
 
 	/**
@@ -29,7 +45,8 @@ public class Util
 	 */
 	public static Predicate<String> notContaining(String... fragments)
 	{
-		return s -> !Strings.isNullOrEmpty(s) && !containing(fragments).test(s);
+		final var containing = containing(fragments);
+		return s -> !Strings.isNullOrEmpty(s) && !containing.test(s);
 	}
 
 	/**
@@ -37,7 +54,8 @@ public class Util
 	 */
 	public static <T extends EntityNameable> Predicate<T> nameContaining(String... fragments)
 	{
-		return e -> e != null && containing(fragments).test(e.getName());
+		final var containing = containing(fragments);
+		return e -> e != null && containing.test(e.getName());
 	}
 
 	/**
@@ -45,7 +63,8 @@ public class Util
 	 */
 	public static <T extends EntityNameable> Predicate<T> nameNotContaining(String... fragments)
 	{
-		return e -> e != null && notContaining(fragments).test(e.getName());
+		final var notContaining = notContaining(fragments);
+		return e -> e != null && notContaining.test(e.getName());
 	}
 
 	/**
@@ -53,8 +72,8 @@ public class Util
 	 */
 	public static Predicate<String> matching(String... fragments)
 	{
-		return s -> !Strings.isNullOrEmpty(s)
-			&& Arrays.stream(fragments).anyMatch(t -> Text.removeTags(s).equalsIgnoreCase(t));
+		final var names = Arrays.stream(fragments).map(String::toLowerCase).collect(Collectors.toSet());
+		return s -> !Strings.isNullOrEmpty(s) && names.contains(Text.removeTags(s).toLowerCase());
 	}
 
 	/**
@@ -62,7 +81,8 @@ public class Util
 	 */
 	public static Predicate<String> notMatching(String... fragments)
 	{
-		return s -> !Strings.isNullOrEmpty(s) && !matching(fragments).test(s);
+		final var matching = matching(fragments);
+		return s -> !Strings.isNullOrEmpty(s) && !matching.test(s);
 	}
 
 	/**
@@ -70,7 +90,8 @@ public class Util
 	 */
 	public static <T extends EntityNameable> Predicate<T> nameMatching(String... names)
 	{
-		return e -> e != null && matching(names).test(e.getName());
+		final var matching = matching(names);
+		return e -> e != null && matching.test(e.getName());
 	}
 
 	/**
@@ -78,7 +99,8 @@ public class Util
 	 */
 	public static <T extends EntityNameable> Predicate<T> nameNotMatching(String... names)
 	{
-		return e -> e != null && !matching(names).test(e.getName());
+		final var matching = matching(names);
+		return e -> e != null && !matching.test(e.getName());
 	}
 
 	/**
@@ -4,9 +4,14 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.yfletch.occore.ActionContext;
 import com.yfletch.occore.util.ObjectHelper;
+import com.yfletch.occore.v2.context.ContextKey;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +32,12 @@ public class Context extends ActionContext
 		ItemID.GRANITE_5KG
 	);
 
+	/**
+	 * Dropped flag for each inventory slot of each granite
+	 * weight, so dropping doesn't build keys
+	 */
+	private static final Map<String, List<ContextKey<Boolean>>> DROP_KEYS = new HashMap<>();
+
 	@Inject
 	private Client client;
 
@@ -102,7 +113,7 @@ public class Context extends ActionContext
 	public void onDrop(String item, int n)
 	{
 		final var kg = item.split(" ", 2)[1];
-		flag("drop-" + kg + "-" + n, true, 1);
+		flag(dropKey(kg, n), true, 1);
 	}
 
 	public int getNextDropIndex(String itemName)
@@ -116,7 +127,7 @@ public class Context extends ActionContext
 		{
 			if (item.getName().contains(kg))
 			{
-				if (!flag("drop-" + kg + "-" + n))
+				if (!flag(dropKey(kg, n)))
 				{
 					return n;
 				}
@@ -126,4 +137,14 @@ public class Context extends ActionContext
 
 		return -1;
 	}
+
+	private static ContextKey<Boolean> dropKey(String kg, int n)
+	{
+		return DROP_KEYS.computeIfAbsent(
+			kg,
+			k -> IntStream.range(0, 28)
+				.mapToObj(i -> ContextKey.flag("drop-" + k + "-" + i))
+				.collect(Collectors.toList())
+		).get(n);
+	}
 }
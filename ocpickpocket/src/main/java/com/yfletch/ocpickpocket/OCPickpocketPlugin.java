@@ -11,6 +11,12 @@ import static com.yfletch.occore.v2.interaction.Entities.object;
 import static com.yfletch.occore.v2.interaction.Entities.spell;
 import static com.yfletch.occore.v2.interaction.Entities.tileItem;
 import static com.yfletch.occore.v2.interaction.Walking.walkPathTo;
+import static com.yfletch.occore.v2.rule.StateDomain.BANK;
+import static com.yfletch.occore.v2.rule.StateDomain.CONTEXT;
+import static com.yfletch.occore.v2.rule.StateDomain.EQUIPMENT;
+import static com.yfletch.occore.v2.rule.StateDomain.INVENTORY;
+import static com.yfletch.occore.v2.rule.StateDomain.OBJECTS;
+import static com.yfletch.occore.v2.rule.StateDomain.VARBITS;
 import static com.yfletch.occore.v2.util.Util.nameMatching;
 import static com.yfletch.occore.v2.util.Util.parseList;
 import static com.yfletch.occore.v2.util.Util.withAction;
@@ -66,6 +72,7 @@ public class OCPickpocketPlugin extends RunnerPlugin<PickpocketContext>
 		setContext(context);
 		setConfigGroup(PickpocketConfig.GROUP_NAME);
 		refreshOnConfigChange(true);
+		stickyResolution(true);
 	}
 
 	@Override
@@ -115,11 +122,13 @@ public class OCPickpocketPlugin extends RunnerPlugin<PickpocketContext>
 		action().name("Wait when stunned")
 			.noop()
 			.when(c -> c.flag("stunned"))
+			.reads(CONTEXT)
 			.message("Waiting (stunned)");
 
 		// drop low value
 		action().name("Drop low value items")
 			.when(c -> Inventory.contains(lowValueItems))
+			.reads(INVENTORY)
 			.then(c -> item(lowValueItems).drop())
 			.many();
 
@@ -150,6 +159,7 @@ public class OCPickpocketPlugin extends RunnerPlugin<PickpocketContext>
 						  || !Inventory.contains(food))
 						  // have max amount of coin pouches
 						  || Inventory.getCount(true, "Coin pouch") >= 28)
+			.reads(INVENTORY)
 			.then(c -> item("Coin pouch").interact("Open-all"))
 			// can sometimes get stuck after a stun
 			.oncePerTick();
@@ -158,11 +168,13 @@ public class OCPickpocketPlugin extends RunnerPlugin<PickpocketContext>
 		action().name("Equip dodgy necklace")
 			.when(c -> !Equipment.contains("Dodgy necklace")
 				&& Inventory.contains("Dodgy necklace"))
+			.reads(INVENTORY, EQUIPMENT)
 			.then(c -> item("Dodgy necklace").equip())
 			.delay(1, 4);
 
 		// path to bank
 		group(
+			"Path to bank",
 			(c) -> !Inventory.contains("Dodgy necklace")
 				|| !Inventory.contains(food),
 			() -> {
@@ -194,12 +206,14 @@ public class OCPickpocketPlugin extends RunnerPlugin<PickpocketContext>
 			.when(c -> Bank.isOpen()
 				&& c.getBankableItems().length > 0
 				&& !c.flag("withdrawing"))
+			.reads(BANK, INVENTORY, CONTEXT)
 			.then(c -> item(c.getBankableItems()).depositAll())
 			.many();
 
 		action().name("Withdraw dodgy necklaces")
 			.when(c -> Bank.isOpen()
 				&& Inventory.getCount("Dodgy necklace") < config.dodgyNecklaceAmount())
+			.reads(BANK, INVENTORY)
 			.then(c -> banked("Dodgy necklace").withdraw(1))
 			.onClick(c -> c.flag("withdrawing", true))
 			.repeat(config.dodgyNecklaceAmount());
@@ -207,6 +221,7 @@ public class OCPickpocketPlugin extends RunnerPlugin<PickpocketContext>
 		action().name("Withdraw food")
 			.when(c -> Bank.isOpen()
 				&& !Inventory.contains(bankedFood))
+			.reads(BANK, INVENTORY)
 			.onClick(c -> c.flag("withdrawing", true))
 			.then(c -> banked(bankedFood).withdrawAll());
 
@@ -214,12 +229,14 @@ public class OCPickpocketPlugin extends RunnerPlugin<PickpocketContext>
 			.when(c -> Bank.isOpen()
 				&& Inventory.contains(bankedFood)
 				&& Inventory.getFreeSlots() < 2)
+			.reads(BANK, INVENTORY)
 			.then(c -> item(bankedFood).deposit(1))
 			.oncePerTick();
 
 		// post bank - darkmeyer
 		action().name("Climb up sepulchre stairs")
 			.when(c -> object(SEPULCHRE_EXIT_STAIRS).exists())
+			.reads(OBJECTS)
 			.then(c -> object(SEPULCHRE_EXIT_STAIRS).interact("Climb-up"));
 
 		action().name("Walk close to NPC")
@@ -230,12 +247,14 @@ public class OCPickpocketPlugin extends RunnerPlugin<PickpocketContext>
 		action().name("Eat excess food")
 			.when(c -> Inventory.getFreeSlots() == 0
 				&& Inventory.contains(food))
+			.reads(INVENTORY)
 			.then(c -> item(food).interact("Eat", "Drink"));
 
 		if (config.useShadowVeil())
 		{
 			action().name("Cast shadow veil")
 				.when(PickpocketContext::canCastShadowVeil)
+				.reads(VARBITS)
 				.then(c -> spell(SpellBook.Necromancy.SHADOW_VEIL).cast())
 				.delay(1, 2);
 		}
@@ -1,5 +1,6 @@
 package com.yfletch.rift;
 
+import com.yfletch.occore.v2.checkpoint.Checkpointable;
 import com.yfletch.rift.enums.Cell;
 import com.yfletch.rift.enums.Pouch;
 import com.yfletch.rift.enums.Rune;
@@ -16,6 +17,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -38,7 +40,7 @@ import net.runelite.api.widgets.WidgetInfo;
 
 @Slf4j
 @Singleton
-public class RiftContext extends ActionContext
+public class RiftContext extends ActionContext implements Checkpointable<RiftContext.PouchState>
 {
 	private static final int ELEMENTAL_RUNE_WIDGET_ID = 48889876;
 	private static final int CATALYTIC_RUNE_WIDGET_ID = 48889879;
@@ -640,4 +642,39 @@ public class RiftContext extends ActionContext
 				&& rune.getRequiredLevel() <= this.getRunecraftLevel()
 				&& (rune.getRequiredQuest() == null || rune.getRequiredQuest().getState(this.client).equals(QuestState.FINISHED));
 	}
+
+	@Override
+	public Class<PouchState> getCheckpointType()
+	{
+		return PouchState.class;
+	}
+
+	@Override
+	public PouchState saveCheckpoint()
+	{
+		return new PouchState(new HashMap<>(pouchEssence), new HashMap<>(pouchUses));
+	}
+
+	@Override
+	public void restoreCheckpoint(PouchState state)
+	{
+		pouchEssence.clear();
+		pouchUses.clear();
+		if (state.essence != null)
+		{
+			pouchEssence.putAll(state.essence);
+		}
+
+		if (state.uses != null)
+		{
+			pouchUses.putAll(state.uses);
+		}
+	}
+
+	@AllArgsConstructor
+	public static class PouchState
+	{
+		private final Map<Pouch, Integer> essence;
+		private final Map<Pouch, Integer> uses;
+	}
 }
@@ -1,6 +1,8 @@
 package com.yfletch.rift;
 
 import com.google.inject.Provides;
+import com.yfletch.occore.v2.checkpoint.Checkpoints;
+import com.yfletch.occore.v2.scene.NpcIndex;
 import com.yfletch.rift.action.EmptyPouch;
 import com.yfletch.rift.action.EquipRobeTop;
 import com.yfletch.rift.action.EquipVarrockArmour;
@@ -51,6 +53,7 @@ import net.runelite.api.events.GameTick;
 import net.runelite.api.events.ItemContainerChanged;
 import net.runelite.api.events.MenuOptionClicked;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.OverlayMenuClicked;
 import net.runelite.client.plugins.Plugin;
@@ -100,11 +103,17 @@ public class RiftPlugin extends Plugin
 	@Inject
 	private Client client;
 
+	@Inject
+	private EventBus eventBus;
+
 	@Inject
 	private RiftConfig config;
 
 	@Inject
 	private Statistics statistics;
+
+	private Checkpoints checkpoints;
+	private boolean restorePending;
 	// end misc
 
 	@Override
@@ -153,11 +162,20 @@ public class RiftPlugin extends Plugin
 
 		PouchSolver solver = new PouchSolver(context);
 		solver.getNextUnfilledPouch();
+
+		// pick up optimistic pouch counts from before a restart
+		checkpoints = new Checkpoints(getName()).register("context", context);
+		restorePending = true;
+
+		// canHeal looks up the nearest guardian for every cell tile
+		NpcIndex.getShared().attach(eventBus, client);
 	}
 
 	@Override
 	protected void shutDown()
 	{
+		checkpoints.save(client);
+		NpcIndex.getShared().detach(eventBus);
 		overlayManager.remove(actionOverlay);
 		overlayManager.remove(debugOverlay);
 		overlayManager.remove(pouchUseOverlay);
@@ -176,6 +194,16 @@ public class RiftPlugin extends Plugin
 			return;
 		}
 
+		if (restorePending)
+		{
+			restorePending = false;
+			checkpoints.restore(client);
+		}
+		else
+		{
+			checkpoints.tick(client);
+		}
+
 		context.setGameTime(context.getGameTime() + 0.6);
 
 		if (context.isInLobbyArea())
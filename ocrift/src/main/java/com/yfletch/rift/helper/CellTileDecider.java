@@ -15,6 +15,7 @@ import net.runelite.api.coords.WorldPoint;
 public class CellTileDecider
 {
 	private static final WorldPoint CENTER = new WorldPoint(3615, 9510, 0);
+	private static final int[] GUARDIAN_IDS = {11424, 11425};
 
 	private final RiftContext context;
 	private final RuneDecider runeDecider;
@@ -87,7 +88,7 @@ public class CellTileDecider
 
 	private boolean canHeal(TileObject tile)
 	{
-		NPC npc = context.getNpcHelper().getNearestTo(new int[]{11424, 11425}, tile);
+		NPC npc = context.getNpcHelper().getNearestTo(GUARDIAN_IDS, tile);
 
 		// not the exact health amount, but it's enough to figure out
 		// which has the lowest HP
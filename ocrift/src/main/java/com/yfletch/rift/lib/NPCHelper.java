@@ -1,5 +1,6 @@
 package com.yfletch.rift.lib;
 
+import com.yfletch.occore.v2.scene.NpcIndex;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +23,12 @@ public class NPCHelper
 
 	public NPC getNearestTo(int[] npcIds, Locatable locatable)
 	{
+		NpcIndex index = NpcIndex.getShared();
+		if (index.isAttached())
+		{
+			return index.nearest(locatable.getWorldLocation(), npcIds);
+		}
+
 		return new NPCQuery().idEquals(npcIds).result(client).nearestTo(locatable);
 	}
 